@@ -1,6 +1,9 @@
 package rocks.blackblock.topper;
 
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.item.Item;
 import net.minecraft.util.Identifier;
@@ -14,6 +17,8 @@ import rocks.blackblock.bib.augment.AugmentKey;
 import rocks.blackblock.topper.compat.TopperEntrypoint;
 import rocks.blackblock.topper.creative.CreativeScreen;
 import rocks.blackblock.topper.creative.CreativeTab;
+import rocks.blackblock.topper.creative.CreativeTabIndex;
+import rocks.blackblock.topper.screen.ItemSearchIndex;
 import rocks.blackblock.topper.server.Commands;
 import rocks.blackblock.topper.statistics.CustomStatisticsAugment;
 import rocks.blackblock.topper.statistics.StatisticsScreen;
@@ -32,6 +37,8 @@ public class BlackBlockTopper implements ModInitializer {
     // Creative items.
     public static final TreeMap<Integer, Item> CREATIVE_ITEMS = new TreeMap<>();
     public static List<Item> CREATIVE_ITEMS_FLATTENED = null;
+    public static ItemSearchIndex CREATIVE_ITEM_SEARCH = null;
+    public static CreativeTabIndex CREATIVE_TAB_INDEX = null;
     public static final HashMap<Identifier, Item> STAT_ITEMS = new HashMap<>();
 
     // Custom statistics component
@@ -48,6 +55,49 @@ public class BlackBlockTopper implements ModInitializer {
     public static void setCreativeScreenPlacement(Item item, int index, CreativeTab... tabs) {
         CREATIVE_ITEMS.put(index, item);
         Arrays.stream(tabs).toList().forEach(tab -> CreativeScreen.TAB_FILTERS.get(tab).add(item));
+
+        // The flattened list & its indexes are made again when they are needed next.
+        CREATIVE_ITEMS_FLATTENED = null;
+        CREATIVE_ITEM_SEARCH = null;
+        CREATIVE_TAB_INDEX = null;
+    }
+
+    /**
+     * Get all the creative items, in the order of their placement.
+     * The list and its search & tab indexes are only made once after the last registration.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static List<Item> getCreativeItems() {
+        if (CREATIVE_ITEMS_FLATTENED == null) {
+            CREATIVE_ITEMS_FLATTENED = CREATIVE_ITEMS.values().stream().toList();
+            CREATIVE_ITEM_SEARCH = new ItemSearchIndex(CREATIVE_ITEMS_FLATTENED);
+            CREATIVE_TAB_INDEX = new CreativeTabIndex(CREATIVE_ITEMS_FLATTENED, CreativeScreen.TAB_FILTERS);
+        }
+        return CREATIVE_ITEMS_FLATTENED;
+    }
+
+    /**
+     * Get the search index of all the creative items
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static ItemSearchIndex getCreativeItemSearch() {
+        getCreativeItems();
+        return CREATIVE_ITEM_SEARCH;
+    }
+
+    /**
+     * Get the tab index of all the creative items
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static CreativeTabIndex getCreativeTabIndex() {
+        getCreativeItems();
+        return CREATIVE_TAB_INDEX;
     }
 
     /**
@@ -70,6 +120,26 @@ public class BlackBlockTopper implements ModInitializer {
         // Register commands
         Commands.register();
 
+        // Keep the player table up-to-date, so renamed players keep their scores
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
+            CustomStatisticsAugment.getInstance().registerPlayer(handler.getPlayer());
+        });
+
+        // Apply the scores that were added from other threads, then update the open statistics screens
+        ServerTickEvents.START_SERVER_TICK.register(server -> {
+            CustomStatisticsAugment.getInstance().tick();
+            StatisticsScreen.tickLiveScreens();
+        });
+
+        // Load the custom stats file, replay the changes that were not saved yet, and log new ones
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            CustomStatisticsAugment.getInstance().openStorage(server);
+        });
+
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            CustomStatisticsAugment.getInstance().closeStorage();
+        });
+
         // Wait for the server (and registries) to be ready
         BibServer.withReadyServer(minecraftServer -> {
             // Get each topper entrypoint and have them register their info
@@ -12,6 +12,7 @@ import rocks.blackblock.topper.BlackBlockTopper;
 import rocks.blackblock.topper.screen.ItemBrowsingScreen;
 import rocks.blackblock.topper.screen.SortCriteria;
 import rocks.blackblock.topper.screen.SortOrder;
+import rocks.blackblock.topper.statistics.ItemStatMatrix;
 
 import java.util.*;
 
@@ -63,30 +64,21 @@ public class CreativeScreen extends ItemBrowsingScreen {
 
     /**
      * Get all the custom items & blocks
-     * Ordered by the current sort order and filtered by the current tab.
+     * Filtered by the current search query and tab, the ordering happens per page.
      *
      * @author  Jade Godwin         <icanhasabanana@gmail.com>
      * @since    0.1.0
      */
     private List<Item> getItems() {
-        // If all items does not yet exist, make it.
-        if (BlackBlockTopper.CREATIVE_ITEMS_FLATTENED == null)
-            BlackBlockTopper.CREATIVE_ITEMS_FLATTENED = BlackBlockTopper.CREATIVE_ITEMS.values().stream().toList();
-
-        // If we're on the all tab, just return all items.
-        ArrayList<Item> returned_items = new ArrayList<>();
-        if (selected_tab == CreativeTab.ALL) {
-            returned_items.addAll(BlackBlockTopper.CREATIVE_ITEMS_FLATTENED);
-
-        // Otherwise, filter based on the tab.
-        } else {
-            ArrayList<Item> filter = TAB_FILTERS.get(selected_tab);
-            BlackBlockTopper.CREATIVE_ITEMS_FLATTENED.forEach(item -> { if (filter.contains(item)) { returned_items.add(item); } });
-        }
+        // Get the items of the selected tab.
+        CreativeTabIndex tab_index = BlackBlockTopper.getCreativeTabIndex();
+        BitSet selection = tab_index.getMembers(this.selected_tab);
+
+        // Only keep the ones matching the search query.
+        BitSet matches = BlackBlockTopper.getCreativeItemSearch().searchSet(this.search_query);
+        if (matches != null) selection.and(matches);
 
-        // Implement sort criteria & return.
-        this.sort_criteria.sort(returned_items, this.sort_order, this.player);
-        return returned_items;
+        return tab_index.getItems(selection);
     }
 
     /**
@@ -187,6 +179,9 @@ public class CreativeScreen extends ItemBrowsingScreen {
         this.addTabButton(sb, 6, CreativeTab.OTHER_ITEMS);
         this.addTabButton(sb, 8, CreativeTab.ALL);
 
+        // Add the search button, if there is a query.
+        this.addSearchButton(sb, 7);
+
         // Add sort buttons.
         this.addSortButtons(sb, 45);
 
@@ -196,30 +191,57 @@ public class CreativeScreen extends ItemBrowsingScreen {
     }
 
     /**
-     * Add the items to the screen!
+     * Select the items of the current page, in the current sort order.
      *
-     * @author  Jade Godwin         <icanhasabanana@gmail.com>
-     * @since    0.1.1
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
      */
-    private void addItems(ScreenBuilder sb) {
+    @Override
+    protected List<?> selectPageElements() {
         // Get selected items.
         List<Item> all_selected_items = this.getItems();
 
         // Get page slot info.
         int slots_per_page = 36;
-        int item_count = all_selected_items.size();
-        int start = (this.page - 1) * slots_per_page;
-        int end = Math.min(start + slots_per_page, item_count);
+        this.page_count = (int) Math.ceil(all_selected_items.size() / (double) slots_per_page);
+
+        // When sorting on a stat, a new stat matrix invalidates the ordering too.
+        Object stats = this.sort_criteria.usesStats() ? ItemStatMatrix.get(this.player, BlackBlockTopper.getCreativeItems()) : "";
+        return this.getPage(
+                all_selected_items,
+                slots_per_page,
+                List.of(this.selected_tab, this.sort_criteria, this.sort_order, stats),
+                () -> this.sort_criteria.getComparator(all_selected_items, this.sort_order, this.player),
+                sorted -> this.sort_criteria.sort(sorted, this.sort_order, this.player)
+        );
+    }
+
+    @Override
+    protected ItemStack createPageStack(Object element) { return new ItemStack((Item) element); }
 
-        // Get subset of items.
-        List<Item> items = all_selected_items.subList(start, end);
+    @Override
+    protected int getPageSlotIndex(int position) { return position + 9; }
+
+    @Override
+    protected Object getLayoutKey() { return List.of(this.selected_tab, this.sort_criteria, this.sort_order); }
+
+    /**
+     * Add the items to the screen!
+     * The listeners look up the stack at their position, so a page flip only has to patch the stacks.
+     *
+     * @author  Jade Godwin         <icanhasabanana@gmail.com>
+     * @since    0.1.1
+     */
+    private void addItems(ScreenBuilder sb) {
+        // Select the page.
+        List<ItemStack> stacks = this.preparePage();
 
         // Fill the screen's slots.
-        for (int i = 0; i < items.size(); i++) {
+        for (int i = 0; i < stacks.size(); i++) {
             // Create button stack.
-            ItemStack stack = new ItemStack(items.get(i));
-            ButtonWidgetSlot button = sb.addButton(i + 9);
-            button.setStack(stack);
+            int position = i;
+            ButtonWidgetSlot button = sb.addButton(this.getPageSlotIndex(position));
+            button.setStack(stacks.get(i));
 
             // Add listener to left click.
             button.addLeftClickListener((screen, slot) -> {
@@ -231,7 +253,7 @@ public class CreativeScreen extends ItemBrowsingScreen {
                 }
 
                 // Give them the new stack.
-                ItemStack new_stack = stack.copy();
+                ItemStack new_stack = this.getPageStack(position).copy();
                 if (screen.isPressingShift())
                     new_stack.setCount(new_stack.getMaxCount());
                 screen.setCursorStack(new_stack);
@@ -247,7 +269,7 @@ public class CreativeScreen extends ItemBrowsingScreen {
                 }
 
                 // Give them the new stack.
-                ItemStack new_stack = stack.copy();
+                ItemStack new_stack = this.getPageStack(position).copy();
                 if (screen.isPressingShift())
                     new_stack.setCount(new_stack.getMaxCount());
                 screen.setCursorStack(new_stack);
@@ -260,14 +282,14 @@ public class CreativeScreen extends ItemBrowsingScreen {
                 if (old_stack != null && !old_stack.isEmpty()) return;
 
                 // Give them the new stack with the max count already there.
-                ItemStack new_stack = stack.copy();
+                ItemStack new_stack = this.getPageStack(position).copy();
                 new_stack.setCount(new_stack.getMaxCount());
                 screen.setCursorStack(new_stack);
             });
         }
 
         // Add pagination!
-        this.setUpPagination(sb, (int) Math.ceil(item_count / (double) slots_per_page));
+        this.setUpPagination(sb, this.page_count);
     }
 
     /**
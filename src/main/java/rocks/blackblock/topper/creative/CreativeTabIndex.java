@@ -0,0 +1,86 @@
+package rocks.blackblock.topper.creative;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.item.Item;
+
+import java.util.*;
+
+/**
+ * The tab membership of all the creative items, as one bitset per tab.
+ *
+ * Every item gets a dense ordinal: its position in the flattened list of creative items.
+ * Tab views, and intersections of tabs with each other or with search results,
+ * are then plain word-level bitset operations.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class CreativeTabIndex {
+
+    private final List<Item> items;
+    private final EnumMap<CreativeTab, BitSet> members = new EnumMap<>(CreativeTab.class);
+
+    public CreativeTabIndex(List<Item> items, Map<CreativeTab, ? extends Collection<Item>> tab_filters) {
+        this.items = items;
+
+        Reference2IntOpenHashMap<Item> ordinals = new Reference2IntOpenHashMap<>(items.size());
+        ordinals.defaultReturnValue(-1);
+        for (int ordinal = 0; ordinal < items.size(); ordinal++)
+            ordinals.putIfAbsent(items.get(ordinal), ordinal);
+
+        for (CreativeTab tab : CreativeTab.values()) {
+            BitSet bits = new BitSet(items.size());
+
+            // The ALL tab simply contains everything.
+            if (tab == CreativeTab.ALL) {
+                bits.set(0, items.size());
+            } else {
+                Collection<Item> tab_items = tab_filters.get(tab);
+                if (tab_items != null) {
+                    for (Item item : tab_items) {
+                        int ordinal = ordinals.getInt(item);
+                        if (ordinal != -1) bits.set(ordinal);
+                    }
+                }
+            }
+
+            this.members.put(tab, bits);
+        }
+    }
+
+    /**
+     * Get the ordinals of the items in the given tab.
+     * The returned set is a copy, so it can be combined further.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public BitSet getMembers(CreativeTab tab) {
+        return (BitSet) this.members.get(tab).clone();
+    }
+
+    /**
+     * Get the ordinals of the items that are in all the given tabs
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public BitSet intersect(CreativeTab... tabs) {
+        BitSet result = this.getMembers(CreativeTab.ALL);
+        for (CreativeTab tab : tabs) result.and(this.members.get(tab));
+        return result;
+    }
+
+    /**
+     * Get the items of the given ordinals, in placement order
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public ArrayList<Item> getItems(BitSet ordinals) {
+        ArrayList<Item> result = new ArrayList<>(ordinals.cardinality());
+        for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1))
+            result.add(this.items.get(ordinal));
+        return result;
+    }
+}
@@ -1,22 +1,34 @@
 package rocks.blackblock.topper.mixin;
 
 import com.google.common.collect.Sets;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.stat.ServerStatHandler;
 import net.minecraft.stat.Stat;
+import net.minecraft.stat.Stats;
+import net.minecraft.util.Identifier;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import rocks.blackblock.topper.BlackBlockTopper;
+import rocks.blackblock.topper.statistics.ItemStatMatrix;
+import rocks.blackblock.topper.statistics.ItemStatTracker;
 
 import java.util.Set;
 
 @Mixin(ServerStatHandler.class)
-public class ServerStatHandlerMixin {
+public class ServerStatHandlerMixin implements ItemStatTracker {
 
     @Shadow @Final private Set<Stat<?>> pendingStats;
 
+    @Unique private int stat_version = 0;
+    @Unique private int item_stat_version = 0;
+    @Unique private ItemStatMatrix item_stat_matrix = null;
+
     @Inject(method="takePendingStats", at = @At("HEAD"))
     private void takePendingStatsMixin(CallbackInfoReturnable<Set<Stat<?>>> cir) {
         // Create a copy of the pendingStats list.
@@ -29,4 +41,28 @@ public class ServerStatHandlerMixin {
                 this.pendingStats.remove(stat);
         });
     }
+
+    @Inject(method="setStat", at = @At("HEAD"))
+    private void setStatMixin(PlayerEntity player, Stat<?> stat, int value, CallbackInfo ci) {
+        if (((ServerStatHandler) (Object) this).getStat(stat) == value) return;
+
+        // Only changes of the stats the statistics screen shows are picked up by it:
+        // the custom stats of its GENERAL tab, and the item stats of its matrix.
+        if (stat.getType() == Stats.CUSTOM && BlackBlockTopper.STAT_ITEMS.containsKey((Identifier) stat.getValue()))
+            this.stat_version++;
+        else if (ItemStatMatrix.isTracked(stat))
+            this.item_stat_version++;
+    }
+
+    @Override
+    public int topper$getStatVersion() { return this.stat_version; }
+
+    @Override
+    public int topper$getItemStatVersion() { return this.item_stat_version; }
+
+    @Override
+    public ItemStatMatrix topper$getItemStatMatrix() { return this.item_stat_matrix; }
+
+    @Override
+    public void topper$setItemStatMatrix(ItemStatMatrix matrix) { this.item_stat_matrix = matrix; }
 }
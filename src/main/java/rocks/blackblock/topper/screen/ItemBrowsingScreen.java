@@ -1,16 +1,273 @@
 package rocks.blackblock.topper.screen;
 
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.ScreenHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
 import rocks.blackblock.screenbuilder.inputs.EmptyInput;
+import rocks.blackblock.screenbuilder.interfaces.SlotEventListener;
 import rocks.blackblock.screenbuilder.interfaces.WidgetDataProvider;
+import rocks.blackblock.screenbuilder.slots.ButtonWidgetSlot;
 import rocks.blackblock.screenbuilder.widgets.PaginationWidget;
+import rocks.blackblock.topper.BlackBlockTopper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public abstract class ItemBrowsingScreen extends EmptyInput implements WidgetDataProvider {
 
     protected ServerPlayerEntity player;
     protected int page = 1;
 
+    protected int page_count = 1;
+    protected String search_query = null;
+
+    // The ordering that was last asked for, and the fully sorted elements once it was asked for twice
+    private Object ordering_key = null;
+    private List<?> sorted_elements = null;
+
+    // The elements & stacks the item slots currently show, and the layout they were built with
+    protected List<?> page_elements = List.of();
+    private List<ItemStack> page_stacks = List.of();
+    private Object page_layout = null;
+
+    /**
+     * Get the key of everything on the screen besides the item slots' stacks:
+     * the selected tab, the titles & overlays of the buttons, ...
+     * As long as it stays the same, the slots can be patched instead of rebuilding the screen.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected abstract Object getLayoutKey();
+
+    /**
+     * Select the elements of the current page, and set the page count
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected abstract List<?> selectPageElements();
+
+    /**
+     * Create the stack (with its name & lore) that shows the given element of the page
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected abstract ItemStack createPageStack(Object element);
+
+    /**
+     * Get the slot index of the given position on the page
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected abstract int getPageSlotIndex(int position);
+
+    /**
+     * Select the current page & create its stacks, and remember them as the rendered slot model.
+     * This is used while building the full screen.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected List<ItemStack> preparePage() {
+        List<?> elements = this.selectPageElements();
+        List<ItemStack> stacks = new ArrayList<>(elements.size());
+        for (Object element : elements) stacks.add(this.createPageStack(element));
+
+        this.page_elements = elements;
+        this.page_stacks = stacks;
+        this.page_layout = this.getFullLayoutKey(elements.size());
+        return stacks;
+    }
+
+    /**
+     * Get the element currently shown at the given position of the page, or null
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected Object getPageElement(int position) {
+        return position < this.page_elements.size() ? this.page_elements.get(position) : null;
+    }
+
+    /**
+     * Get the stack currently shown at the given position of the page, or an empty stack
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected ItemStack getPageStack(int position) {
+        return position < this.page_stacks.size() ? this.page_stacks.get(position) : ItemStack.EMPTY;
+    }
+
+    /**
+     * Bring the open screen up-to-date by only changing the item slots that differ from the rendered slot model.
+     * Slot listeners look up their element by position, so they stay valid.
+     *
+     * @return   False if the layout changed, in which case the screen has to be rebuilt
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected boolean patchPage(ScreenHandler handler) {
+        List<?> elements = this.selectPageElements();
+        if (!this.getFullLayoutKey(elements.size()).equals(this.page_layout))
+            return false;
+
+        List<ItemStack> stacks = new ArrayList<>(elements.size());
+        for (int position = 0; position < elements.size(); position++) {
+            ItemStack stack = this.createPageStack(elements.get(position));
+            stacks.add(stack);
+
+            if (!ItemStack.areEqual(stack, this.page_stacks.get(position)))
+                handler.getSlot(this.getPageSlotIndex(position)).setStack(stack.copy());
+        }
+
+        this.page_elements = elements;
+        this.page_stacks = stacks;
+
+        // Only the slots that actually changed are sent.
+        handler.sendContentUpdates();
+        return true;
+    }
+
+    /**
+     * The layout also depends on which slots have a button and on the pagination widget
+     */
+    private Object getFullLayoutKey(int element_count) {
+        return List.of(this.getLayoutKey(), Objects.toString(this.search_query, ""), element_count, this.page_count);
+    }
+
+    /**
+     * Only show the items matching the given query (in their name, translation key or identifier)
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void setSearchQuery(String query) {
+        this.search_query = query == null || query.isBlank() ? null : query.trim();
+        this.page = 1;
+    }
+
+    /**
+     * Get the creative items matching the current search query, in their placement order.
+     * This is a lookup in the prebuilt search index, no item names are resolved.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected List<Item> getSearchedItems() {
+        return BlackBlockTopper.getCreativeItemSearch().filter(this.search_query);
+    }
+
+    /**
+     * Add the button showing the current search query, which clears it when clicked.
+     * Nothing is added when there is no query.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected void addSearchButton(ScreenBuilder sb, int button_index) {
+        if (this.search_query == null) return;
+
+        ButtonWidgetSlot search_button = sb.addButton(button_index);
+        search_button.setTitle("Search: " + this.search_query);
+        search_button.setBackgroundType(ButtonWidgetSlot.BackgroundType.SMALL);
+        search_button.setLore(Text.literal("Click to clear the search"));
+
+        SlotEventListener listener = (screen, slot) -> {
+            this.setSearchQuery(null);
+            screen.replaceScreen(this);
+            this.onScreenReplaced();
+        };
+        search_button.addLeftClickListener(listener);
+        search_button.addMiddleClickListener(listener);
+        search_button.addRightClickListener(listener);
+    }
+
+    /**
+     * Get the elements of the current page, in the order of the given comparator.
+     *
+     * The first time an ordering is asked for, only the elements up to the end of the page are selected
+     * with a bounded heap, which costs O(n log k) for the first pages instead of a full sort.
+     * If the same ordering is asked for again (like when flipping pages), the elements are sorted once
+     * and that order is reused for as long as the ordering key stays the same.
+     *
+     * @param    elements       The filtered elements
+     * @param    page_size      The amount of elements per page
+     * @param    ordering_key   Identifies the filter & order of the elements (compared with equals)
+     * @param    comparator     Creates the comparator of element indexes, which may return null when the elements are already in order
+     * @param    sorter         Fully sorts the elements in that same order
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> List<T> getPage(List<T> elements, int page_size, Object ordering_key, Supplier<IntComparator> comparator, Consumer<List<T>> sorter) {
+        // The search query filters the elements too.
+        ordering_key = List.of(ordering_key, Objects.toString(this.search_query, ""));
+        int size = elements.size();
+        int start = Math.max(0, (this.page - 1) * page_size);
+        int end = Math.min(start + page_size, size);
+        if (start >= end) return List.of();
+
+        // Reuse the sorted elements of this ordering.
+        boolean seen_before = ordering_key.equals(this.ordering_key);
+        if (seen_before && this.sorted_elements != null && this.sorted_elements.size() == size)
+            return ((List<T>) this.sorted_elements).subList(start, end);
+
+        this.ordering_key = ordering_key;
+        this.sorted_elements = null;
+
+        // The second time, sort everything and keep it.
+        if (seen_before) {
+            List<T> sorted = new ArrayList<>(elements);
+            sorter.accept(sorted);
+            this.sorted_elements = sorted;
+            return sorted.subList(start, end);
+        }
+
+        IntComparator order = comparator.get();
+        if (order == null) return elements.subList(start, end);
+
+        // Keep the first `end` elements in a heap with the last one of them on top.
+        IntHeapPriorityQueue heap = new IntHeapPriorityQueue(end, (a, b) -> order.compare(b, a));
+        for (int i = 0; i < size; i++) {
+            if (heap.size() < end) {
+                heap.enqueue(i);
+            } else if (order.compare(i, heap.firstInt()) < 0) {
+                heap.dequeueInt();
+                heap.enqueue(i);
+            }
+        }
+
+        // The heap hands them out last one first, so only the ones on the page need to be kept.
+        T[] page = (T[]) new Object[end - start];
+        for (int position = end - 1; position >= start; position--)
+            page[position - start] = elements.get(heap.dequeueInt());
+
+        return Arrays.asList(page);
+    }
+
+    /**
+     * Called after the whole screen was replaced by a new one
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected void onScreenReplaced() {}
+
     /**
      * Set up pagination.
      *
@@ -24,9 +281,12 @@ public abstract class ItemBrowsingScreen extends EmptyInput implements WidgetDat
         pagination.setSlotIndex(50);
         pagination.setMaxValue(max_page_count);
 
-        // On a page change, replace the whole screen.
+        // On a page change, only patch the item slots. Replace the whole screen if the layout changed.
         pagination.setOnChangeListener((texturedScreenHandler, widget) -> {
-            texturedScreenHandler.replaceScreen(this);
+            if (!this.patchPage(texturedScreenHandler)) {
+                texturedScreenHandler.replaceScreen(this);
+                this.onScreenReplaced();
+            }
         });
 
         // Add paginator and return.
@@ -0,0 +1,129 @@
+package rocks.blackblock.topper.screen;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An n-gram index over the names, translation keys and identifiers of a fixed list of items.
+ *
+ * Every 1-, 2- and 3-character substring points to the sorted ordinals (positions in the list)
+ * of the items containing it. Short queries are a single lookup. Longer queries take the list
+ * of their rarest trigram (nothing outside of it can match) and verify each of its candidates
+ * against the full text of the item.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class ItemSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int[] NONE = new int[0];
+
+    private final List<Item> items;
+    private final String[] texts;
+    private final HashMap<String, int[]> postings = new HashMap<>();
+
+    public ItemSearchIndex(List<Item> items) {
+        this.items = items;
+        this.texts = new String[items.size()];
+
+        HashMap<String, IntArrayList> lists = new HashMap<>();
+
+        for (int ordinal = 0; ordinal < items.size(); ordinal++) {
+            Item item = items.get(ordinal);
+
+            // Everything a player could search for, resolved only once.
+            String text = (item.getName().getString() + "\n" + item.getTranslationKey() + "\n" + Registries.ITEM.getId(item)).toLowerCase();
+            this.texts[ordinal] = text;
+
+            for (int size = 1; size <= GRAM_SIZE; size++) {
+                for (int start = 0; start + size <= text.length(); start++) {
+                    String gram = text.substring(start, start + size);
+                    if (gram.indexOf('\n') != -1) continue;
+
+                    // Ordinals are added in order, so each list stays sorted without duplicates.
+                    IntArrayList list = lists.computeIfAbsent(gram, key -> new IntArrayList());
+                    if (list.isEmpty() || list.getInt(list.size() - 1) != ordinal)
+                        list.add(ordinal);
+                }
+            }
+        }
+
+        for (Map.Entry<String, IntArrayList> entry : lists.entrySet())
+            this.postings.put(entry.getKey(), entry.getValue().toIntArray());
+    }
+
+    public List<Item> getItems() { return this.items; }
+
+    /**
+     * Get the sorted ordinals of the items matching the given query.
+     *
+     * @return   The ordinals, or null if the query is empty (and everything matches)
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int[] search(String query) {
+        if (query == null) return null;
+        query = query.trim().toLowerCase();
+        if (query.isEmpty()) return null;
+
+        // Queries up to the gram size are indexed as-is.
+        if (query.length() <= GRAM_SIZE)
+            return this.postings.getOrDefault(query, NONE);
+
+        // Only the items containing the rarest trigram of the query can match, so only those are verified.
+        int[] candidates = null;
+        for (int start = 0; start + GRAM_SIZE <= query.length(); start++) {
+            int[] list = this.postings.get(query.substring(start, start + GRAM_SIZE));
+            if (list == null) return NONE;
+            if (candidates == null || list.length < candidates.length) candidates = list;
+        }
+
+        IntArrayList result = new IntArrayList();
+        for (int ordinal : candidates)
+            if (this.texts[ordinal].contains(query))
+                result.add(ordinal);
+
+        return result.toIntArray();
+    }
+
+    /**
+     * Get the ordinals of the items matching the given query as a bitset,
+     * so it can be intersected with other filters.
+     *
+     * @return   The ordinals, or null if the query is empty (and everything matches)
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public BitSet searchSet(String query) {
+        int[] ordinals = this.search(query);
+        if (ordinals == null) return null;
+
+        BitSet result = new BitSet(this.items.size());
+        for (int ordinal : ordinals) result.set(ordinal);
+        return result;
+    }
+
+    /**
+     * Get the items matching the given query, in list order
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public List<Item> filter(String query) {
+        int[] ordinals = this.search(query);
+        if (ordinals == null) return this.items;
+
+        Item[] result = new Item[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) result[i] = this.items.get(ordinals[i]);
+        return List.of(result);
+    }
+}
@@ -1,15 +1,19 @@
 package rocks.blackblock.topper.screen;
 
-import net.minecraft.component.DataComponentTypes;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.Item;
-import net.minecraft.item.ItemStack;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.stat.StatType;
 import net.minecraft.stat.Stats;
 import net.minecraft.util.StringIdentifiable;
 import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.textures.IconTexture;
+import rocks.blackblock.topper.BlackBlockTopper;
+import rocks.blackblock.topper.statistics.GeneralStatRow;
+import rocks.blackblock.topper.statistics.ItemStatMatrix;
 
 import java.util.*;
 
@@ -30,6 +34,9 @@ public enum SortCriteria implements StringIdentifiable {
         DEFAULT, ALPHABETICAL, OWNER, MINED, CRAFTED, USED, BROKEN, PICKED_UP, DROPPED
     };
 
+    // The lowercase names of all the items sorted so far
+    private static final Reference2ObjectOpenHashMap<Item, String> NAME_KEYS = new Reference2ObjectOpenHashMap<>();
+
     private final String name;
     private final IconTexture icon;
     private final StatType<Item> statType;
@@ -40,57 +47,192 @@ public enum SortCriteria implements StringIdentifiable {
     public String toString() { return this.asString(); }
     public String asString() { return this.name; }
     public IconTexture getIcon() { return this.icon; }
+    public boolean usesStats() { return this == SortCriteria.MINED || this.statType != null; }
 
     public SortCriteria next() { return values[(Arrays.asList(values).indexOf(this) + 1) % values.length]; }
     public SortCriteria prev() { return values[(Arrays.asList(values).indexOf(this) + values.length - 1) % values.length]; }
 
     public void sort(List<Item> items, SortOrder sortOrder, ServerPlayerEntity player) {
-        // Alphabet sort
+        boolean ascending = sortOrder == SortOrder.ASCENDING;
+
+        // Alphabet sort, on the cached name key of each item.
         if (this == SortCriteria.ALPHABETICAL) {
-            items.sort(Comparator.comparing(item -> item.getName().getString().toLowerCase()));
+            sortByKeys(items, this.getNameKeys(items), ascending);
 
-        // Mined stat, being the only block stat, gets its own special part.
-        } else if (this == SortCriteria.MINED) {
-            items.sort(Comparator.comparing(item ->
-                item instanceof BlockItem blockItem ? -player.getStatHandler().getStat(Stats.MINED, blockItem.getBlock()) : 1
-            ));
+        // Stat sorts, on the values in the item stat matrix.
+        } else if (this.usesStats()) {
+            sortByKeys(items, this.getStatKeys(items, player), ascending);
 
-        // For all other stats, attempt to sort by the stat.
-        } else if (this.statType != null) {
-            items.sort(Comparator.comparing(item -> -player.getStatHandler().getStat(this.statType, item)));
+        // Without a criteria, only the direction matters.
+        } else if (ascending) {
+            Collections.reverse(items);
         }
+    }
 
-        // Final reversal if we're doing ascending.
-        if (sortOrder == SortOrder.ASCENDING)
-            Collections.reverse(items);
+    /**
+     * Get a comparator of the indexes of the given items, in the same order sort() would put them in.
+     * The keys are extracted up front, and ties are broken by index.
+     *
+     * @return   The comparator, or null if the items are already in order
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public IntComparator getComparator(List<Item> items, SortOrder sortOrder, ServerPlayerEntity player) {
+        int direction = sortOrder == SortOrder.ASCENDING ? -1 : 1;
+
+        if (this == SortCriteria.ALPHABETICAL) {
+            String[] keys = this.getNameKeys(items);
+            return (a, b) -> {
+                int result = keys[a].compareTo(keys[b]);
+                return direction * (result != 0 ? result : Integer.compare(a, b));
+            };
+        }
+
+        if (this.usesStats()) {
+            int[] keys = this.getStatKeys(items, player);
+            return (a, b) -> {
+                int result = Integer.compare(keys[a], keys[b]);
+                return direction * (result != 0 ? result : Integer.compare(a, b));
+            };
+        }
+
+        return direction == 1 ? null : (a, b) -> Integer.compare(b, a);
     }
 
-    public void sort(List<ItemStack> stacks, ServerPlayerEntity player, SortOrder sortOrder) {
+    /**
+     * Get the name keys of the given items
+     */
+    private String[] getNameKeys(List<Item> items) {
+        String[] keys = new String[items.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = getNameKey(items.get(i));
+        return keys;
+    }
+
+    /**
+     * Get the stat keys of the given items, highest stat first.
+     * Mined stat, being the only block stat, gets its own special part.
+     */
+    private int[] getStatKeys(List<Item> items, ServerPlayerEntity player) {
+        ItemStatMatrix matrix = ItemStatMatrix.get(player, BlackBlockTopper.getCreativeItems());
+        int[] keys = new int[items.size()];
+
+        if (this == SortCriteria.MINED) {
+            for (int i = 0; i < keys.length; i++) {
+                Item item = items.get(i);
+                keys[i] = item instanceof BlockItem ? -matrix.get(item, ItemStatMatrix.MINED) : 1;
+            }
+        } else {
+            int column = ItemStatMatrix.getColumn(this.statType);
+            for (int i = 0; i < keys.length; i++) keys[i] = -matrix.get(items.get(i), column);
+        }
+
+        return keys;
+    }
+
+    public void sort(List<GeneralStatRow> rows, SortOrder sortOrder) {
+        boolean ascending = sortOrder == SortOrder.ASCENDING;
+        int size = rows.size();
+
         // Alphabet sort
         if (this == SortCriteria.ALPHABETICAL) {
-            stacks.sort(Comparator.comparing(stack -> stack.getName().getString().toLowerCase()));
+            String[] keys = new String[size];
+            for (int i = 0; i < size; i++) keys[i] = rows.get(i).name().toLowerCase();
+            sortByKeys(rows, keys, ascending);
 
-        // Owner sort. First, sort alphabetical, THEN by owner.
+        // Owner sort: by owner, then alphabetical. Stats without an owner go last.
         } else if (this == SortCriteria.OWNER) {
-            stacks.sort(Comparator.comparing(stack -> stack.getName().getString()));
-            stacks.sort(Comparator.comparing(stack -> {
-                String owner = stack.getComponents().get(DataComponentTypes.CUSTOM_DATA).getNbt().getString("custom_stat_owner");
-                return owner.isEmpty() ? "zzzzzzzzzzzzzzzz" : owner;
-            }));
-
-        // Mined stat, being the only block stat, gets its own special part.
-        } else if (this == SortCriteria.MINED) {
-            stacks.sort(Comparator.comparing(stack ->
-                    stack.getItem() instanceof BlockItem blockItem ? -player.getStatHandler().getStat(Stats.MINED, blockItem.getBlock()) : 1
-            ));
-
-        // For all other stats, attempt to sort by the stat.
-        } else if (this.statType != null) {
-            stacks.sort(Comparator.comparing(stack -> -player.getStatHandler().getStat(this.statType, stack.getItem())));
+            String[] owners = new String[size];
+            String[] names = new String[size];
+            for (int i = 0; i < size; i++) {
+                owners[i] = rows.get(i).owner();
+                names[i] = rows.get(i).name();
+            }
+            sortIndexes(rows, ascending, (a, b) -> {
+                int result = owners[a] == null ? (owners[b] == null ? 0 : 1) : (owners[b] == null ? -1 : owners[a].compareTo(owners[b]));
+                return result != 0 ? result : names[a].compareTo(names[b]);
+            });
+
+        // Without a criteria, only the direction matters.
+        } else if (ascending) {
+            Collections.reverse(rows);
+        }
+    }
+
+    /**
+     * Get the lowercase name of the given item, which is used to sort it alphabetically.
+     * Item names never change at runtime, so they are only resolved once.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static String getNameKey(Item item) {
+        String key = NAME_KEYS.get(item);
+        if (key == null) {
+            key = item.getName().getString().toLowerCase();
+            NAME_KEYS.put(item, key);
         }
+        return key;
+    }
+
+    /**
+     * Sort the given elements by their int keys, lowest key first.
+     * Each key is packed together with its original index into a single long,
+     * so this is a plain primitive sort that keeps equal keys in their original order.
+     * Ascending order is the exact reverse, so the packed keys are simply read back to front.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static <T> void sortByKeys(List<T> elements, int[] keys, boolean ascending) {
+        int size = keys.length;
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++)
+            packed[i] = ((keys[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL) << 32 | i;
+        Arrays.sort(packed);
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = (int) packed[ascending ? size - 1 - i : i];
+        reorder(elements, order);
+    }
+
+    /**
+     * Sort the given elements by their precomputed string keys, lowest key first.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static <T> void sortByKeys(List<T> elements, String[] keys, boolean ascending) {
+        sortIndexes(elements, ascending, (a, b) -> keys[a].compareTo(keys[b]));
+    }
+
+    /**
+     * Sort the indexes of the given elements with the given comparator, and then the elements themselves.
+     * Ties keep their original order, and ascending order is the exact reverse.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static <T> void sortIndexes(List<T> elements, boolean ascending, IntComparator comparator) {
+        int[] order = new int[elements.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+
+        int direction = ascending ? -1 : 1;
+        IntArrays.quickSort(order, (a, b) -> {
+            int result = comparator.compare(a, b);
+            return direction * (result != 0 ? result : Integer.compare(a, b));
+        });
+        reorder(elements, order);
+    }
 
-        // Final reversal if we're doing ascending.
-        if (sortOrder == SortOrder.ASCENDING)
-            Collections.reverse(stacks);
+    /**
+     * Put the given elements in the given order of original indexes.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void reorder(List<T> elements, int[] order) {
+        Object[] original = elements.toArray();
+        for (int i = 0; i < order.length; i++)
+            elements.set(i, (T) original[order[i]]);
     }
 }
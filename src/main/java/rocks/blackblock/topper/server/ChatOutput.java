@@ -0,0 +1,116 @@
+package rocks.blackblock.topper.server;
+
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.ClickEvent;
+import net.minecraft.text.HoverEvent;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+/**
+ * Gathers the lines of a single response into one Text,
+ * so a response costs one chat packet instead of one per line.
+ *
+ * The amount of lines and characters is capped: lines that do not fit anymore are counted,
+ * and replaced by a single "... and x more" line, which can run a command showing the next page.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class ChatOutput {
+
+    public static final int MAX_LINES = 20;
+    public static final int MAX_CHARACTERS = 2048;
+
+    private final MutableText message;
+    private final int max_lines;
+    private int line_count = 0;
+    private int character_count;
+    private int hidden_count = 0;
+    private String more_command = null;
+
+    public ChatOutput(Text header) {
+        this(header, MAX_LINES);
+    }
+
+    public ChatOutput(Text header, int max_lines) {
+        this.message = Text.empty().append(header);
+        this.max_lines = max_lines;
+        this.character_count = header.getString().length();
+    }
+
+    /**
+     * Add a line, unless the output is already full
+     *
+     * @return   True if the line was added
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean addLine(Text line) {
+        int length = line.getString().length() + 1;
+
+        if (this.hidden_count > 0 || this.line_count >= this.max_lines || this.character_count + length > MAX_CHARACTERS) {
+            this.hidden_count++;
+            return false;
+        }
+
+        this.message.append(Text.literal("\n")).append(line);
+        this.line_count++;
+        this.character_count += length;
+        return true;
+    }
+
+    /**
+     * Count lines that were left out before they were even built (like the next pages)
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void addHidden(int count) { this.hidden_count += count; }
+
+    /**
+     * Set the command that shows the lines that did not fit
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public ChatOutput setMoreCommand(String command) {
+        this.more_command = command;
+        return this;
+    }
+
+    public int getLineCount() { return this.line_count; }
+
+    /**
+     * Get the whole response as a single Text
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public Text build() {
+        if (this.hidden_count == 0) return this.message;
+
+        MutableText result = this.message.copy();
+        result.append(Text.literal("\n... and " + this.hidden_count + " more").formatted(Formatting.GRAY));
+
+        // Add a clickable pager for the rest.
+        if (this.more_command != null) {
+            result.append(Text.literal(" ")).append(Text.literal("[more]").setStyle(Style.EMPTY
+                    .withColor(Formatting.YELLOW)
+                    .withClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, this.more_command))
+                    .withHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, Text.literal(this.more_command)))));
+        }
+
+        return result;
+    }
+
+    public void sendTo(ServerPlayerEntity player) { player.sendMessage(this.build()); }
+
+    public void sendTo(ServerCommandSource source) {
+        Text text = this.build();
+        source.sendFeedback(() -> text, false);
+    }
+}
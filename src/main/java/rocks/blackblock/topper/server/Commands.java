@@ -7,12 +7,13 @@ import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.minecraft.command.argument.ScoreHolderArgumentType;
 import net.minecraft.item.ItemStack;
 import net.minecraft.scoreboard.ScoreHolder;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.Pair;
 import rocks.blackblock.bib.command.CommandCreator;
 import rocks.blackblock.bib.command.CommandLeaf;
 import rocks.blackblock.core.helper.PlayerHelper;
@@ -21,14 +22,25 @@ import rocks.blackblock.topper.creative.CreativeScreen;
 import rocks.blackblock.topper.statistics.CustomStatistic;
 import rocks.blackblock.topper.statistics.CustomStatisticPertainability;
 import rocks.blackblock.topper.statistics.CustomStatisticsAugment;
+import rocks.blackblock.topper.statistics.HistoryWindow;
+import rocks.blackblock.topper.statistics.LeaderboardEntry;
+import rocks.blackblock.topper.statistics.ScoreHistory;
+import rocks.blackblock.topper.statistics.StatisticView;
 import rocks.blackblock.topper.statistics.StatisticsScreen;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 public class Commands {
 
     private static final CommandLeaf BLACKBLOCK = CommandCreator.getPermissionRoot("blackblock", "blackblock.mod");
     private static final CommandLeaf BBSTATS = CommandCreator.getRoot("bbstats");
+    private static final int LEADERBOARD_PAGE_SIZE = 10;
+
+    // Read-only queries are formatted on virtual threads, using the read-only stats snapshot
+    private static final ExecutorService QUERY_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
 
     public static void register() {
         // Creative command
@@ -42,6 +54,7 @@ public class Commands {
     /**
      * Add creative commands.
      * Usage: /blackblock creative
+     * Usage: /blackblock creative <query>
      *
      * @author   Jelle De Loecker   <jelle@elevenways.be>
      * @since    0.1.0
@@ -58,6 +71,19 @@ public class Commands {
             player.openHandledScreen(new CreativeScreen(player));
             return 1;
         });
+
+        // Open the screen with only the items matching the query.
+        CommandLeaf creative_query = creative_leaf.getChild("query");
+        creative_query.setType(StringArgumentType.greedyString());
+        creative_query.onExecute(context -> {
+            ServerPlayerEntity player = context.getSource().getPlayer();
+            if (player == null) return 0;
+
+            CreativeScreen screen = new CreativeScreen(player);
+            screen.setSearchQuery(StringArgumentType.getString(context, "query"));
+            player.openHandledScreen(screen);
+            return 1;
+        });
     }
 
     /**
@@ -77,7 +103,7 @@ public class Commands {
 
             // Open screen.
             if (player == null) return 0;
-            player.openHandledScreen(new StatisticsScreen(player));
+            new StatisticsScreen(player).open();
             return 1;
         });
 
@@ -90,7 +116,21 @@ public class Commands {
 
             // Open screen.
             if (player == null) return 0;
-            player.openHandledScreen(new StatisticsScreen(player));
+            new StatisticsScreen(player).open();
+            return 1;
+        });
+
+        // Open the items tab with only the items matching the query.
+        // Usage: /bbstats gui <query>
+        CommandLeaf gui_query = gui.getChild("query");
+        gui_query.setType(StringArgumentType.greedyString());
+        gui_query.onExecute(context -> {
+            ServerPlayerEntity player = context.getSource().getPlayer();
+            if (player == null) return 0;
+
+            StatisticsScreen screen = new StatisticsScreen(player);
+            screen.setSearchQuery(StringArgumentType.getString(context, "query"));
+            screen.open();
             return 1;
         });
 
@@ -133,12 +173,9 @@ public class Commands {
                     if (target_names == null) return 0;
 
                     // Add the scores.
-                    int last_score = 0;
-                    for (String target : target_names)
-                        last_score = statistic.addScore(target, 1);
+                    int last_score = statistic.addScores(target_names, 1);
 
                     // Send feedback to player and return last score in the list.
-                    CustomStatisticsAugment.getInstance().markDirty();
                     if (target_names.size() == 1) {
                         context.getSource().sendFeedback(() -> Text.literal("Added 1 to " + target_names.get(0) + "'s [" + statistic.getDisplayName() + "] stat"), true);
                         return last_score;
@@ -157,12 +194,9 @@ public class Commands {
 
                     // Add the scores.
                     int amount = IntegerArgumentType.getInteger(context, "amount");
-                    int last_score = 0;
-                    for (String target : target_names)
-                        last_score = statistic.addScore(target, amount);
+                    int last_score = statistic.addScores(target_names, amount);
 
                     // Send feedback to player and return last score in the list.
-                    CustomStatisticsAugment.getInstance().markDirty();
                     if (target_names.size() == 1) {
                         context.getSource().sendFeedback(() -> Text.literal("Added " + amount + " to " + target_names.get(0) + "'s [" + statistic.getDisplayName() + "] stat"), true);
                         return last_score;
@@ -174,6 +208,7 @@ public class Commands {
 
         /**
          * Player get command. Simply returns the given player's stat total.
+         * Like the other read-only commands, its feedback is sent through the query executor.
          * Usage: /bbstats players get <key> <target>
          *
          * @author   Jade Godwin          <icanhasabanana@gmail.com>
@@ -189,38 +224,85 @@ public class Commands {
                     String target = getPlayerNameFromScoreHolderType(context, "target");
                     if (target == null) return 0;
 
-                    // Send feedback to player.
+                    // The score is the command's result, so it is read right away; only the message is built on the query executor.
                     int score = statistic.getScore(target);
-                    context.getSource().sendFeedback(() -> Text.literal(target + " has a [" + statistic.getDisplayName() + "] score of " + score), false);
+                    String display_name = statistic.getDisplayName();
+                    sendQueryFeedback(context.getSource(), () -> Text.literal(target + " has a [" + display_name + "] score of " + score));
                     return score;
                 }))
         );
 
         /**
-         * Player list command. When used on a key, it will return a list of players' scores, ordered from top to bottom.
-         * Usage: /bbstats players list <key>
+         * Player rank command. Returns the given player's position on the stat's leaderboard.
+         * Usage: /bbstats players rank <key> <target>
+         *
+         * @author   Jelle De Loecker   <jelle@elevenways.be>
+         * @since    0.3.0
+         */
+        CommandLeaf players_rank = players.getChild("rank");
+        CommandLeaf rank_key = addCustomStatisticSelection(players_rank, CustomStatisticPertainability.MAINTAINS,null);
+        CommandLeaf rank_target = rank_key.getChild("target");
+        rank_target.setType(ScoreHolderArgumentType.scoreHolders()).suggests(ScoreHolderArgumentType.SUGGESTION_PROVIDER);
+        rank_target.onExecute(context ->
+                getCustomStatAndExecute(context, CustomStatisticPertainability.MAINTAINS, ((context1, player, statistic) -> {
+                    // Gather target name.
+                    String target = getPlayerNameFromScoreHolderType(context, "target");
+                    if (target == null) return 0;
+
+                    // Players without a score are not ranked.
+                    int rank = statistic.getRank(target);
+                    if (rank == 0) {
+                        context.getSource().sendFeedback(() -> Text.literal(target + " has no [" + statistic.getDisplayName() + "] score"), false);
+                        return 0;
+                    }
+
+                    // Send feedback to player and return the rank.
+                    int score = statistic.getScore(target);
+                    int total = statistic.getScoreCount();
+                    context.getSource().sendFeedback(() -> Text.literal(target + " is ranked #" + rank + " of " + total + " on [" + statistic.getDisplayName() + "] with a score of " + score), false);
+                    return rank;
+                }))
+        );
+
+        /**
+         * Player list command. When used on a key, it will return a page of players' scores, ordered from top to bottom.
+         * The page is served from the stat's leaderboard cache and sent as a single message.
+         * Usage: /bbstats players list <key> [page]
          *
          * @author   Jade Godwin          <icanhasabanana@gmail.com>
          * @since    0.2.0
          */
         CommandLeaf players_list = players.getChild("list");
         CommandLeaf list_key = addCustomStatisticSelection(players_list, CustomStatisticPertainability.MAINTAINS,
-            (context, player, statistic) -> {
-                // Send feedback to player.
-                List<Pair<String, Integer>> scores = statistic.getScores();
-                scores.sort(Comparator.comparing(scorePair -> -scorePair.getRight()));
-                if (scores.isEmpty()) context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] has no player scores"), false);
-                else {
-                    context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] has the following scores:"), false);
-                    for (int i = 0; i < scores.size(); i++) {
-                        Text text = Text.literal( "#" + (i + 1) + ": ").formatted(Formatting.YELLOW).append(Text.literal(scores.get(i).getLeft() + ": " + scores.get(i).getRight()).formatted(Formatting.WHITE));
-                        context.getSource().sendFeedback(() -> text, false);
-                    }
-                }
+            (context, player, statistic) -> sendLeaderboardPage(context, statistic, 1));
+        CommandLeaf list_page = list_key.getChild("page");
+        list_page.setType(IntegerArgumentType.integer(1));
+        list_page.onExecute(context ->
+                getCustomStatAndExecute(context, CustomStatisticPertainability.MAINTAINS, ((context1, player, statistic) ->
+                        sendLeaderboardPage(context, statistic, IntegerArgumentType.getInteger(context, "page"))))
+        );
 
-                // Return score list size.
-                return scores.size();
-            });
+        /**
+         * Player history command. Returns a page of the leaderboard of the current time window.
+         * The scores come straight out of the stat's history buckets.
+         * Usage: /bbstats players history <key> <window> [page]
+         *
+         * @author   Jelle De Loecker   <jelle@elevenways.be>
+         * @since    0.3.0
+         */
+        CommandLeaf players_history = players.getChild("history");
+        CommandLeaf history_key = addCustomStatisticSelection(players_history, CustomStatisticPertainability.MAINTAINS,null);
+        CommandLeaf history_window = addHistoryWindowSelection(history_key);
+        history_window.onExecute(context ->
+                getCustomStatAndExecute(context, CustomStatisticPertainability.MAINTAINS, ((context1, player, statistic) ->
+                        sendHistoryPage(context, statistic, 1)))
+        );
+        CommandLeaf history_page = history_window.getChild("page");
+        history_page.setType(IntegerArgumentType.integer(1));
+        history_page.onExecute(context ->
+                getCustomStatAndExecute(context, CustomStatisticPertainability.MAINTAINS, ((context1, player, statistic) ->
+                        sendHistoryPage(context, statistic, IntegerArgumentType.getInteger(context, "page"))))
+        );
 
         /**
          * Player remove command. Subtracts the given amount from the given players' stat.
@@ -244,12 +326,9 @@ public class Commands {
                     if (target_names == null) return 0;
 
                     // Subtract the scores.
-                    int last_score = 0;
-                    for (String target : target_names)
-                        last_score = statistic.removeScore(target, 1);
+                    int last_score = statistic.removeScores(target_names, 1);
 
                     // Send feedback to player and return last score in the list.
-                    CustomStatisticsAugment.getInstance().markDirty();
                     if (target_names.size() == 1) {
                         context.getSource().sendFeedback(() -> Text.literal("Subtracted 1 from " + target_names.get(0) + "'s [" + statistic.getDisplayName() + "] stat"), true);
                         return last_score;
@@ -268,12 +347,9 @@ public class Commands {
 
                     // Subtract the scores.
                     int amount = IntegerArgumentType.getInteger(context, "amount");
-                    int last_score = 0;
-                    for (String target : target_names)
-                        last_score = statistic.removeScore(target, amount);
+                    int last_score = statistic.removeScores(target_names, amount);
 
                     // Send feedback to player and return last score in the list.
-                    CustomStatisticsAugment.getInstance().markDirty();
                     if (target_names.size() == 1) {
                         context.getSource().sendFeedback(() -> Text.literal("Subtracted " + amount + " from " + target_names.get(0) + "'s [" + statistic.getDisplayName() + "] stat"), true);
                         return last_score;
@@ -301,10 +377,9 @@ public class Commands {
                     if (target_names == null) return 0;
 
                     // Set the scores.
-                    target_names.forEach(statistic::resetScore);
+                    statistic.resetScores(target_names);
 
                     // Send feedback to player and return last score in the list.
-                    CustomStatisticsAugment.getInstance().markDirty();
                     if (target_names.size() == 1) {
                         context.getSource().sendFeedback(() -> Text.literal("Reset " + target_names.get(0) + "'s [" + statistic.getDisplayName() + "] stat to 0"), true);
                         return 1;
@@ -335,12 +410,9 @@ public class Commands {
 
                     // Set the scores.
                     int amount = IntegerArgumentType.getInteger(context, "amount");
-                    int last_score = 0;
-                    for (String target : target_names)
-                        last_score = statistic.setScore(target, amount);
+                    int last_score = statistic.setScores(target_names, amount);
 
                     // Send feedback to player and return last score in the list.
-                    CustomStatisticsAugment.getInstance().markDirty();
                     if (target_names.size() == 1) {
                         context.getSource().sendFeedback(() -> Text.literal("Set " + target_names.get(0) + "'s [" + statistic.getDisplayName() + "] stat to " + amount), true);
                         return last_score;
@@ -428,19 +500,10 @@ public class Commands {
          * @since    0.2.0
          */
         CommandLeaf stats_list = stats.getChild("list");
-        stats_list.onExecute(context -> {
-            // Get statistics list. Output.
-            List<CustomStatistic> statistics = CustomStatisticsAugment.getInstance().getCustomStatistics();
-            if (statistics.isEmpty())
-                context.getSource().sendFeedback(() -> Text.literal("There are no custom stats"), false);
-            else {
-                List<String> names = new ArrayList<>();
-                statistics.forEach(statistic -> names.add(statistic.getDisplayName()));
-                context.getSource().sendFeedback(() -> Text.literal("There are " + statistics.size() + " custom stat(s): [" +
-                        String.join("], [", names) + "]"), false);
-            }
-            return 1;
-        });
+        stats_list.onExecute(context -> sendStatisticsListPage(context, 1));
+        CommandLeaf stats_list_page = stats_list.getChild("page");
+        stats_list_page.setType(IntegerArgumentType.integer(1));
+        stats_list_page.onExecute(context -> sendStatisticsListPage(context, IntegerArgumentType.getInteger(context, "page")));
 
         /**
          * Stat get command. Lists all the custom stat's attributes. Can be used by anyone.
@@ -452,11 +515,17 @@ public class Commands {
         CommandLeaf stats_get = stats.getChild("get");
         addCustomStatisticSelection(stats_get, CustomStatisticPertainability.ALL,
             (context, player, statistic) -> {
-                context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] has the following properties:"), false);
-                context.getSource().sendFeedback(() -> Text.literal( "- ").formatted(Formatting.YELLOW).append(Text.literal("Owner: " + statistic.getOwner()).formatted(Formatting.WHITE)), false);
-                context.getSource().sendFeedback(() -> Text.literal( "- ").formatted(Formatting.YELLOW).append(Text.literal("Maintainer(s): " + String.join(", ", statistic.getMaintainers())).formatted(Formatting.WHITE)), false);
-                context.getSource().sendFeedback(() -> Text.literal( "- ").formatted(Formatting.YELLOW).append(Text.literal("Display Item: " + statistic.getDisplayItem().getName().getString()).formatted(Formatting.WHITE)), false);
-                context.getSource().sendFeedback(() -> Text.literal( "- ").formatted(Formatting.YELLOW).append(Text.literal("Number format: " + statistic.getFormat().asString()).formatted(Formatting.WHITE)), false);
+                StatisticView view = CustomStatisticsAugment.getInstance().getSnapshot().getStatistic(statistic.getKey().getPath());
+                if (view == null) return 0;
+
+                sendQueryFeedback(context.getSource(), () -> {
+                    MutableText message = Text.literal("[" + view.display_name() + "] has the following properties:");
+                    message.append(Text.literal("\n- ").formatted(Formatting.YELLOW)).append(Text.literal("Owner: " + view.owner()).formatted(Formatting.WHITE));
+                    message.append(Text.literal("\n- ").formatted(Formatting.YELLOW)).append(Text.literal("Maintainer(s): " + String.join(", ", view.maintainers())).formatted(Formatting.WHITE));
+                    message.append(Text.literal("\n- ").formatted(Formatting.YELLOW)).append(Text.literal("Display Item: " + view.display_item_name()).formatted(Formatting.WHITE));
+                    message.append(Text.literal("\n- ").formatted(Formatting.YELLOW)).append(Text.literal("Number format: " + view.format().asString()).formatted(Formatting.WHITE));
+                    return message;
+                });
                 return 1;
             });
 
@@ -551,6 +620,37 @@ public class Commands {
             }))
         );
 
+        // Modify score history.
+        // Usage: /bbstats stats modify <key> history <window> <enable/disable>
+        CommandLeaf modify_history = stats_modify_key.getChild("history");
+        CommandLeaf modify_history_window = addHistoryWindowSelection(modify_history);
+        modify_history_window.getChild("enable").onExecute(context ->
+                getCustomStatAndExecute(context, CustomStatisticPertainability.OWNS, ((context1, player, statistic) -> {
+                    HistoryWindow window = getHistoryWindow(context);
+                    if (window == null) return 0;
+
+                    // Enable the window and send feedback.
+                    int return_value = statistic.enableHistory(window);
+                    if (return_value == 0) context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] already keeps a " + window.asString() + " history").formatted(Formatting.RED), false);
+                    else context.getSource().sendFeedback(() -> Text.literal("Enabled the " + window.asString() + " history for [" + statistic.getDisplayName() + "]"), true);
+                    CustomStatisticsAugment.getInstance().markDirty();
+                    return return_value;
+                }))
+        );
+        modify_history_window.getChild("disable").onExecute(context ->
+                getCustomStatAndExecute(context, CustomStatisticPertainability.OWNS, ((context1, player, statistic) -> {
+                    HistoryWindow window = getHistoryWindow(context);
+                    if (window == null) return 0;
+
+                    // Disable the window and send feedback.
+                    int return_value = statistic.disableHistory(window);
+                    if (return_value == 0) context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] does not keep a " + window.asString() + " history").formatted(Formatting.RED), false);
+                    else context.getSource().sendFeedback(() -> Text.literal("Disabled the " + window.asString() + " history for [" + statistic.getDisplayName() + "]"), true);
+                    CustomStatisticsAugment.getInstance().markDirty();
+                    return return_value;
+                }))
+        );
+
         // Modify maintainers.
         // Usage: /bbstats stats modify <key> maintainers <add/remove> <maintainer_name>
         CommandLeaf modify_maintainers = stats_modify_key.getChild("maintainers");
@@ -650,7 +750,7 @@ public class Commands {
 
         // Get custom statistic object.
         String custom_statistic_key = StringArgumentType.getString(context, "key");
-        CustomStatistic customStatistic = CustomStatisticsAugment.getInstance().getCustomStatistic(StringArgumentType.getString(context, "key"));
+        CustomStatistic customStatistic = CustomStatisticsAugment.getInstance().getCustomStatistic(custom_statistic_key);
         if (customStatistic == null) {
             source.sendFeedback(() -> Text.literal("Unknown custom stat '" + custom_statistic_key + "'").formatted(Formatting.RED), false);
             return 0;
@@ -663,8 +763,9 @@ public class Commands {
         // No permissions. Send message and return.
         switch (pertainability) {
             case OWNS -> {
-                source.sendFeedback(() -> Text.literal("Only the owner of a custom stat can do that.").formatted(Formatting.RED), false);
-                source.sendFeedback(() -> Text.literal("This custom stat is owned by " + customStatistic.getOwner() + ".").formatted(Formatting.RED), false);
+                ChatOutput output = new ChatOutput(Text.literal("Only the owner of a custom stat can do that.").formatted(Formatting.RED));
+                output.addLine(Text.literal("This custom stat is owned by " + customStatistic.getOwner() + ".").formatted(Formatting.RED));
+                output.sendTo(source);
             }
             case MAINTAINS -> source.sendFeedback(() -> Text.literal("Only maintainers of a custom stat can do that.").formatted(Formatting.RED), false);
             default -> source.sendFeedback(() -> Text.literal("An unexpected error appeared. Please for the love of God, never let anyone have this error.").formatted(Formatting.RED), false);
@@ -673,6 +774,170 @@ public class Commands {
     }
 
 
+    /**
+     * Send a single page of the given stat's leaderboard as one message.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static int sendLeaderboardPage(CommandContext<ServerCommandSource> context, CustomStatistic statistic, int page) {
+        int score_count = statistic.getScoreCount();
+        int page_count = (int) Math.ceil(score_count / (double) LEADERBOARD_PAGE_SIZE);
+        if (page_count == 0) {
+            context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] has no player scores"), false);
+            return 0;
+        }
+
+        // Make sure the page exists.
+        if (page > page_count) {
+            context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] only has " + page_count + " page(s) of scores").formatted(Formatting.RED), false);
+            return 0;
+        }
+
+        // The entries come out of the leaderboard cache, only the message is built off the server thread.
+        LeaderboardEntry[] entries = statistic.getLeaderboardPage(page, LEADERBOARD_PAGE_SIZE);
+        String display_name = statistic.getDisplayName();
+        String key = statistic.getKey().getPath();
+
+        sendQueryFeedback(context.getSource(), () -> {
+            // Gather all the lines into a single message, with a pager for the next pages.
+            ChatOutput output = new ChatOutput(Text.literal("[" + display_name + "] has the following scores (page " + page + "/" + page_count + "):"));
+            for (LeaderboardEntry entry : entries)
+                output.addLine(Text.literal("#" + entry.rank() + ": ").formatted(Formatting.YELLOW).append(Text.literal(entry.name() + ": " + entry.score()).formatted(Formatting.WHITE)));
+            output.addHidden(Math.max(0, score_count - page * LEADERBOARD_PAGE_SIZE));
+            output.setMoreCommand("/bbstats players list " + key + " " + (page + 1));
+            return output.build();
+        });
+
+        // Return the amount of scores shown.
+        return entries.length;
+    }
+
+    /**
+     * Send a single page of the list of custom stats as one message.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static int sendStatisticsListPage(CommandContext<ServerCommandSource> context, int page) {
+        // Get statistics list from the snapshot.
+        List<StatisticView> statistics = CustomStatisticsAugment.getInstance().getSnapshot().getStatistics();
+        if (statistics.isEmpty()) {
+            context.getSource().sendFeedback(() -> Text.literal("There are no custom stats"), false);
+            return 0;
+        }
+
+        // Make sure the page exists.
+        int page_count = (int) Math.ceil(statistics.size() / (double) ChatOutput.MAX_LINES);
+        if (page > page_count) {
+            context.getSource().sendFeedback(() -> Text.literal("There are only " + page_count + " page(s) of custom stats").formatted(Formatting.RED), false);
+            return 0;
+        }
+
+        // Output.
+        sendQueryFeedback(context.getSource(), () -> {
+            int start = (page - 1) * ChatOutput.MAX_LINES;
+            int end = Math.min(start + ChatOutput.MAX_LINES, statistics.size());
+
+            ChatOutput output = new ChatOutput(Text.literal("There are " + statistics.size() + " custom stat(s) (page " + page + "/" + page_count + "):"));
+            for (int i = start; i < end; i++)
+                output.addLine(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("[" + statistics.get(i).display_name() + "]").formatted(Formatting.WHITE)));
+            output.addHidden(statistics.size() - end);
+            output.setMoreCommand("/bbstats stats list " + (page + 1));
+            return output.build();
+        });
+
+        return 1;
+    }
+
+    /**
+     * Build a read-only query's feedback on the query executor,
+     * and only send the result on the server thread.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static void sendQueryFeedback(ServerCommandSource source, Supplier<Text> message_builder) {
+        MinecraftServer server = source.getServer();
+        QUERY_EXECUTOR.execute(() -> {
+            Text message = message_builder.get();
+            server.execute(() -> source.sendFeedback(() -> message, false));
+        });
+    }
+
+    /**
+     * Send a single page of the current window of the given stat's history as one message.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static int sendHistoryPage(CommandContext<ServerCommandSource> context, CustomStatistic statistic, int page) {
+        HistoryWindow window = getHistoryWindow(context);
+        if (window == null) return 0;
+
+        // Make sure the stat keeps this history.
+        ScoreHistory history = statistic.getHistory(window);
+        if (history == null) {
+            context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] does not keep a " + window.asString() + " history").formatted(Formatting.RED), false);
+            return 0;
+        }
+
+        int page_count = (int) Math.ceil(history.getScoreCount(0) / (double) LEADERBOARD_PAGE_SIZE);
+        if (page_count == 0) {
+            context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] has no player scores " + window.getCurrentName()), false);
+            return 0;
+        }
+
+        // Make sure the page exists.
+        if (page > page_count) {
+            context.getSource().sendFeedback(() -> Text.literal("[" + statistic.getDisplayName() + "] only has " + page_count + " page(s) of scores " + window.getCurrentName()).formatted(Formatting.RED), false);
+            return 0;
+        }
+
+        // Gather all the lines into a single message, with a pager for the next pages.
+        LeaderboardEntry[] entries = history.getLeaderboardPage(0, page, LEADERBOARD_PAGE_SIZE, CustomStatisticsAugment.getInstance().getPlayers());
+        ChatOutput output = new ChatOutput(Text.literal("[" + statistic.getDisplayName() + "] has the following scores " + window.getCurrentName() + " (page " + page + "/" + page_count + "):"));
+        for (LeaderboardEntry entry : entries)
+            output.addLine(Text.literal("#" + entry.rank() + ": ").formatted(Formatting.YELLOW).append(Text.literal(entry.name() + ": " + entry.score()).formatted(Formatting.WHITE)));
+        output.addHidden(Math.max(0, history.getScoreCount(0) - page * LEADERBOARD_PAGE_SIZE));
+        output.setMoreCommand("/bbstats players history " + statistic.getKey().getPath() + " " + window.asString() + " " + (page + 1));
+
+        // Send feedback and return the amount of scores shown.
+        output.sendTo(context.getSource());
+        return entries.length;
+    }
+
+    /**
+     * Add a history window argument to the given leaf.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static CommandLeaf addHistoryWindowSelection(CommandLeaf parent) {
+        CommandLeaf window = parent.getChild("window");
+        window.setType(StringArgumentType.string());
+        window.suggests((context, builder) -> {
+            for (HistoryWindow history_window : HistoryWindow.values())
+                builder.suggest(history_window.asString());
+            return builder.buildFuture();
+        });
+        return window;
+    }
+
+    /**
+     * Get the history window referenced in the context.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private static HistoryWindow getHistoryWindow(CommandContext<ServerCommandSource> context) {
+        String window_name = StringArgumentType.getString(context, "window");
+        HistoryWindow window = HistoryWindow.getByName(window_name);
+        if (window == null)
+            context.getSource().sendFeedback(() -> Text.literal("Unknown history window '" + window_name + "'").formatted(Formatting.RED), false);
+        return window;
+    }
+
     /**
      * Get the player name from the Singular Score Holder argument type.
      * Score Holder argument types are convenient from a user standpoint but annoying from a parsing standpoint.
@@ -737,11 +1002,16 @@ public class Commands {
 
         // Set suggestions.
         key.suggests((context, builder) -> {
-            List<CustomStatistic> customStatistics =
-                    CustomStatisticsAugment.getInstance().getCustomStatistics(context.getSource(), pertainability);
             ServerPlayerEntity player = context.getSource().getPlayer();
-            if (player != null)
-                customStatistics.forEach(customStatistic -> builder.suggest(customStatistic.getKey().getPath()));
+            if (player == null) return builder.buildFuture();
+
+            // The keys are sorted, so the ones matching the typed prefix are next to each other.
+            String[] keys = CustomStatisticsAugment.getInstance().getCustomStatisticKeys(context.getSource(), pertainability);
+            String prefix = builder.getRemainingLowerCase();
+            int index = Arrays.binarySearch(keys, prefix);
+            if (index < 0) index = -index - 1;
+            for (; index < keys.length && keys[index].startsWith(prefix); index++)
+                builder.suggest(keys[index]);
             return builder.buildFuture();
         });
 
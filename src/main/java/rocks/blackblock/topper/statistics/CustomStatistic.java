@@ -1,6 +1,8 @@
 package rocks.blackblock.topper.statistics;
 
 import com.mojang.authlib.properties.PropertyMap;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.minecraft.component.DataComponentTypes;
 import net.minecraft.component.type.ProfileComponent;
 import net.minecraft.item.ItemStack;
@@ -20,11 +22,36 @@ public class CustomStatistic {
     protected String display_name;
     protected Identifier key;
     protected ItemStack display_item;
-    protected List<String> maintainers = new ArrayList<>();
-    protected HashMap<String, Integer> scores = new HashMap<>();
+    protected final LinkedHashSet<String> maintainers = new LinkedHashSet<>();
+    protected final CustomStatisticsAugment augment;
+    protected final PlayerSymbolTable players;
+    protected final Int2IntOpenHashMap scores = new Int2IntOpenHashMap();
+    protected final ScoreRankIndex rank_index = new ScoreRankIndex();
+    protected final LeaderboardCache leaderboard = new LeaderboardCache(this.rank_index);
+    protected final EnumMap<HistoryWindow, ScoreHistory> history = new EnumMap<>(HistoryWindow.class);
     protected StatFormat format = StatFormat.DEFAULT;
 
-    protected CustomStatistic(@NotNull Identifier key, @NotNull String name, @NotNull String owner_name) {
+    // Bumped on every change: the encoded NBT is reused by saves as long as its version matches
+    protected int version = 0;
+    protected int encoded_version = -1;
+    protected NbtCompound encoded_nbt = null;
+
+    // The undecoded scores of a loaded stat, until something first needs them
+    protected byte[] score_data = null;
+    protected boolean score_data_unreadable = false;
+
+    // Bumped on every metadata change: the last immutable view is only rebuilt after one
+    protected int metadata_version = 0;
+    protected StatisticView view = null;
+    protected int view_version = -1;
+
+    // The last immutable view with the scores, only built when something asks for it
+    protected StatisticView scored_view = null;
+    protected int scored_view_version = -1;
+
+    protected CustomStatistic(@NotNull Identifier key, @NotNull String name, @NotNull String owner_name, @NotNull CustomStatisticsAugment augment) {
+        this.augment = augment;
+        this.players = augment.getPlayers();
         this.key = key;
         this.display_name = name;
         this.owner_name = owner_name;
@@ -40,7 +67,7 @@ public class CustomStatistic {
     public String getOwner() { return owner_name; }
     public Identifier getKey() { return this.key; }
     public String getDisplayName() { return this.display_name; }
-    public List<String> getMaintainers() { return this.maintainers; }
+    public Set<String> getMaintainers() { return Collections.unmodifiableSet(this.maintainers); }
     public ItemStack getDisplayItem() {
         // If the display item is not set, then return the owner's player head.
         if (this.display_item == null || this.display_item.isEmpty()) {
@@ -62,18 +89,23 @@ public class CustomStatistic {
      */
     public int setOwner(String target) {
         if (target == null || target.isEmpty() || owner_name.equals(target)) return 0;
+        this.augment.unindexPlayers(this);
         owner_name = target;
+        this.augment.indexPlayers(this);
+        this.markDirty();
         return 1;
     }
 
     public int setDisplayName(String name) {
         if (name == null || name.isEmpty()) return 0;
         this.display_name = name;
+        this.markDirty();
         return 1;
     }
 
     public int setFormat(StatFormat format) {
         this.format = format;
+        this.markDirty();
         return 1;
     }
 
@@ -91,18 +123,25 @@ public class CustomStatistic {
             // Set and return.
             this.display_item = display_stack;
         }
+        this.markDirty();
         return 1;
     }
 
     public int addMaintainer(String target) {
         if (target == null || target.isEmpty() || isMaintainer(target)) return 0;
+        this.augment.unindexPlayers(this);
         maintainers.add(target);
+        this.augment.indexPlayers(this);
+        this.markDirty();
         return 1;
     }
 
     public int removeMaintainer(String target) {
         if (target == null || target.isEmpty() || !isMaintainer(target) || owner_name.equals(target)) return 0;
+        this.augment.unindexPlayers(this);
         maintainers.remove(target);
+        this.augment.indexPlayers(this);
+        this.markDirty();
         return 1;
     }
 
@@ -112,35 +151,305 @@ public class CustomStatistic {
      * @author   Jade Godwin          <icanhasabanana@gmail.com>
      * @since    0.2.0
      */
-    public int getScore(String target) {
-        if (this.scores.containsKey(target))
-            return this.scores.get(target);
-        return 0;
+    public int getScore(String target) { return this.getScore(this.players.getId(target)); }
+    public int getScore(UUID target) { return this.getScore(this.players.getId(target)); }
+    public int getScore(int player_id) {
+        if (player_id < 0) return 0;
+        this.loadScores();
+        return this.scores.get(player_id);
     }
 
     public String getFormattedScore(String target) { return this.format.getFormatter().format(this.getScore(target)); }
 
     public List<Pair<String, Integer>> getScores() {
+        this.loadScores();
+
         // Put scores on a list and return.
-        List<Pair<String, Integer>> scores = new ArrayList<>();
-        this.scores.forEach((name, score) -> scores.add(new Pair<>(name, score)));
+        List<Pair<String, Integer>> scores = new ArrayList<>(this.scores.size());
+        this.scores.int2IntEntrySet().fastForEach(entry -> scores.add(new Pair<>(this.players.getName(entry.getIntKey()), entry.getIntValue())));
         return scores;
     }
 
     public int resetScore(String target) { return this.setScore(target, 0); }
-    public int setScore(String target, Integer value) {
+    public int setScore(String target, int value) {
         if (target == null || target.isEmpty()) return 0;
-        this.scores.put(target, value);
-        return getScore(target);
+        return this.setScore(this.players.getOrCreateId(target), value);
+    }
+    public int setScore(int player_id, int value) {
+        if (!this.loadScores()) return 0;
+        boolean existed = this.rank_index.contains(player_id);
+        int old_value = this.scores.put(player_id, value);
+        this.onScoreChanged(player_id, existed, old_value, value);
+
+        ScoreJournal journal = this.augment.getJournal();
+        if (journal != null) journal.logSetScore(this.key.getPath(), this.players.getName(player_id), value);
+
+        return value;
     }
 
     public int removeScore(String target, int value) { return addScore(target, -value); }
     public int addScore(String target, int value) {
         if (target == null || target.isEmpty()) return 0;
-        this.scores.put(target, this.getScore(target) + value);
-        return getScore(target);
+        return this.addScore(this.players.getOrCreateId(target), value);
+    }
+    public int addScore(String target, int value, long epoch_day) {
+        if (target == null || target.isEmpty()) return 0;
+        return this.addScore(this.players.getOrCreateId(target), value, epoch_day);
+    }
+    public void addScoreConcurrently(String target, int value) {
+        this.augment.addScoreConcurrently(this.key.getPath(), target, value);
+    }
+    public int addScore(int player_id, int value) {
+        return this.addScore(player_id, value, HistoryWindow.getCurrentEpochDay());
+    }
+
+    /**
+     * Add to a score on the given day: the delta is recorded in the history windows of that day.
+     * Only journal replays add scores on days other than today.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int addScore(int player_id, int value, long epoch_day) {
+        if (!this.loadScores()) return 0;
+        boolean existed = this.rank_index.contains(player_id);
+        int old_value = this.scores.addTo(player_id, value);
+        int new_value = old_value + value;
+        this.onScoreChanged(player_id, existed, old_value, new_value);
+
+        // Record the delta in the enabled history windows.
+        if (!this.history.isEmpty())
+            for (ScoreHistory score_history : this.history.values())
+                score_history.record(player_id, value, epoch_day);
+
+        ScoreJournal journal = this.augment.getJournal();
+        if (journal != null) journal.logAddScore(this.key.getPath(), this.players.getName(player_id), value, epoch_day);
+
+        return new_value;
+    }
+
+    /**
+     * Bulk score mutations.
+     * Each target is resolved and written in a single pass, and the stats are only marked dirty once.
+     *
+     * @return   The new score of the last target
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int addScores(Collection<String> targets, int value) {
+        int last_score = 0;
+        for (String target : targets)
+            if (target != null && !target.isEmpty())
+                last_score = this.addScore(this.players.getOrCreateId(target), value);
+        if (!targets.isEmpty()) this.augment.markDirty();
+        return last_score;
+    }
+
+    public int addScores(Map<String, Integer> deltas) {
+        int last_score = 0;
+        for (Map.Entry<String, Integer> entry : deltas.entrySet())
+            if (entry.getKey() != null && !entry.getKey().isEmpty())
+                last_score = this.addScore(this.players.getOrCreateId(entry.getKey()), entry.getValue());
+        if (!deltas.isEmpty()) this.augment.markDirty();
+        return last_score;
+    }
+
+    public int addScores(int[] player_ids, int[] values) {
+        int last_score = 0;
+        for (int i = 0; i < player_ids.length; i++)
+            last_score = this.addScore(player_ids[i], values[i]);
+        if (player_ids.length > 0) this.augment.markDirty();
+        return last_score;
+    }
+
+    public int removeScores(Collection<String> targets, int value) { return this.addScores(targets, -value); }
+    public int resetScores(Collection<String> targets) { return this.setScores(targets, 0); }
+    public int setScores(Collection<String> targets, int value) {
+        for (String target : targets)
+            if (target != null && !target.isEmpty())
+                this.setScore(this.players.getOrCreateId(target), value);
+        if (!targets.isEmpty()) this.augment.markDirty();
+        return value;
+    }
+
+    /**
+     * Keep the score indexes in sync after a score was written.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    protected void onScoreChanged(int player_id, boolean existed, int old_value, int new_value) {
+        this.version++;
+        this.rank_index.put(player_id, new_value);
+        this.leaderboard.onScoreChanged(existed, old_value, new_value);
+        if (old_value != new_value) this.augment.getScoreIndex().update(player_id, this, new_value);
+    }
+
+    /**
+     * Get the 1-based rank of the given player, in O(log n).
+     * Players with the same score share the same rank. Returns 0 if the player has no score.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getRank(String target) { return this.getRank(this.players.getId(target)); }
+    public int getRank(UUID target) { return this.getRank(this.players.getId(target)); }
+    public int getRank(int player_id) {
+        this.loadScores();
+        return this.rank_index.getRank(player_id);
+    }
+
+    /**
+     * Get the amount of players that have a score for this stat.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getScoreCount() {
+        this.loadScores();
+        return this.scores.size();
+    }
+
+    public int[] getScoredPlayerIds() {
+        this.loadScores();
+        return this.scores.keySet().toIntArray();
+    }
+
+    /**
+     * Decode the scores that were loaded from disk, if that did not happen yet.
+     * Loaded scores are not a change, so this does not make the stat dirty.
+     * If they can not be decoded, the original bytes are kept (and saved again as they were)
+     * and the scores of this stat can not be changed.
+     *
+     * @return   False if the scores could not be decoded
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean loadScores() {
+        if (this.score_data == null) return true;
+        if (this.score_data_unreadable) return false;
+
+        // Decode into a separate map first, so broken data leaves the stat untouched.
+        Int2IntOpenHashMap decoded = new Int2IntOpenHashMap();
+        int player_count = this.players.size();
+
+        try {
+            ScoreCodec.decode(this.score_data, (player_id, score) -> {
+                if (player_id < 0 || player_id >= player_count)
+                    throw new IllegalArgumentException("Unknown player id " + player_id);
+                decoded.put(player_id, score);
+            });
+        } catch (Exception e) {
+            this.score_data_unreadable = true;
+            BlackBlockTopper.LOGGER.error("Failed to load the scores of custom statistic " + this.key + ", they are kept as they were saved and can not be changed!", e);
+            return false;
+        }
+
+        this.score_data = null;
+
+        for (Int2IntMap.Entry entry : decoded.int2IntEntrySet()) {
+            int player_id = entry.getIntKey();
+            int score = entry.getIntValue();
+            this.scores.put(player_id, score);
+            this.rank_index.put(player_id, score);
+            this.augment.getScoreIndex().load(player_id, this, score);
+        }
+
+        this.leaderboard.invalidate();
+        return true;
+    }
+
+    public boolean hasLoadedScores() { return this.score_data == null; }
+
+    /**
+     * Get an immutable view of this stat's metadata, which can be read from any thread.
+     * The view is reused until the metadata changes: score changes do not touch it.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public StatisticView getView() {
+        if (this.view != null && this.view_version == this.metadata_version)
+            return this.view;
+
+        this.view = this.createView(null, null);
+        this.view_version = this.metadata_version;
+        return this.view;
+    }
+
+    /**
+     * Get an immutable view of this stat that also contains all of its scores, in leaderboard order.
+     * Copying the scores is O(n), so this is only done when a reader on another thread needs them,
+     * and the copy is reused until the stat changes.
+     * Has to be called on the server thread.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public StatisticView getScoredView() {
+        if (!this.loadScores()) return this.getView();
+
+        if (this.scored_view != null && this.scored_view_version == this.version)
+            return this.scored_view;
+
+        int[] ranked_ids = new int[this.rank_index.size()];
+        int[] ranked_scores = new int[ranked_ids.length];
+        this.rank_index.copyInOrder(ranked_ids, ranked_scores);
+
+        this.scored_view = this.createView(ranked_ids, ranked_scores);
+        this.scored_view_version = this.version;
+        return this.scored_view;
+    }
+
+    private StatisticView createView(int[] ranked_ids, int[] ranked_scores) {
+        return new StatisticView(this.key, this.display_name, this.owner_name, List.copyOf(this.maintainers),
+                this.format, this.getDisplayItem().getName().getString(), ranked_ids, ranked_scores);
+    }
+
+    /**
+     * Get a single page of the leaderboard, highest scores first.
+     * The top pages come straight out of the leaderboard cache.
+     *
+     * @param    page        The 1-based page number
+     * @param    page_size   The amount of entries per page
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public LeaderboardEntry[] getLeaderboardPage(int page, int page_size) {
+        this.loadScores();
+        return this.leaderboard.getEntries((page - 1) * page_size, page_size, this.players);
+    }
+
+    public int getLeaderboardPageCount(int page_size) {
+        return (int) Math.ceil(this.getScoreCount() / (double) page_size);
+    }
+
+    /**
+     * Enable, disable & get the score history of a time window.
+     * Only scores added after the history was enabled are recorded.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int enableHistory(HistoryWindow window) {
+        if (window == null || this.history.containsKey(window)) return 0;
+        this.history.put(window, new ScoreHistory(window));
+        this.markDirty();
+        return 1;
+    }
+
+    public int disableHistory(HistoryWindow window) {
+        if (window == null || this.history.remove(window) == null) return 0;
+        this.markDirty();
+        return 1;
     }
 
+    public ScoreHistory getHistory(HistoryWindow window) { return this.history.get(window); }
+    public Set<HistoryWindow> getHistoryWindows() { return this.history.keySet(); }
+
     /**
      * Is the given user a maintainer of this stat?
      *
@@ -163,13 +472,131 @@ public class CustomStatistic {
         };
     }
 
+    /**
+     * Mark this stat as changed, so it is re-encoded on the next save.
+     * The new metadata is logged to the journal right away.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void markDirty() {
+        this.version++;
+        this.metadata_version++;
+        this.augment.markDirty();
+        this.augment.onMetadataChanged();
+
+        ScoreJournal journal = this.augment.getJournal();
+        if (journal != null) journal.logMetadata(this.key.getPath(), this.getMetadataNbt());
+    }
+
+    public boolean isDirty() { return this.version != this.encoded_version; }
+
+    /**
+     * Get a number that changes whenever this stat's metadata or one of its scores changes.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getVersion() { return this.version; }
+
+    /**
+     * Get the NBT of this stat for saving.
+     * The encoded NBT of the previous save (or background encode) is reused if nothing changed since.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public NbtCompound getSaveNbt() {
+        if (this.isDirty() || this.encoded_nbt == null) {
+            this.encoded_nbt = encode(this.snapshot());
+            this.encoded_version = this.version;
+        }
+        return this.encoded_nbt;
+    }
+
+    /**
+     * Take a consistent copy of everything that has to be saved.
+     * This only copies the scores into flat arrays, so it is cheap enough for the server thread,
+     * and the copy can then be encoded on any thread.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public Snapshot snapshot() {
+        this.loadScores();
+
+        NbtList maintainers = new NbtList();
+        this.maintainers.forEach(name -> { maintainers.add(NbtString.of(name)); });
+
+        NbtCompound stat_info = new NbtCompound();
+        stat_info.putString("key", this.key.toString());
+        stat_info.putString("display_name", this.display_name);
+        stat_info.putString("owner_name", this.owner_name);
+        stat_info.putString("format", this.format.asString());
+        stat_info.put("maintainers", maintainers);
+
+        // The history buckets are small, so they are encoded right away.
+        if (!this.history.isEmpty()) {
+            NbtCompound history = new NbtCompound();
+            this.history.forEach((window, score_history) -> history.put(window.asString(), score_history.toNbt()));
+            stat_info.put("history", history);
+        }
+
+        // Scores that could not be decoded are saved again exactly as they were loaded.
+        if (this.score_data != null) {
+            stat_info.putByteArray("score_data", this.score_data);
+            return new Snapshot(this, this.version, stat_info, null);
+        }
+
+        long[] entries = new long[this.scores.size()];
+        int i = 0;
+        for (Int2IntMap.Entry entry : this.scores.int2IntEntrySet())
+            entries[i++] = ScoreCodec.pack(entry.getIntKey(), entry.getIntValue());
+
+        return new Snapshot(this, this.version, stat_info, entries);
+    }
+
+    /**
+     * Store the result of a background encode.
+     * It is only used by saves if the stat did not change since its snapshot was taken.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void setEncodedNbt(int snapshot_version, NbtCompound nbt) {
+        if (snapshot_version != this.version) return;
+        this.encoded_nbt = nbt;
+        this.encoded_version = snapshot_version;
+    }
+
+    /**
+     * Encode a snapshot. Does not touch the live stat, so it is safe to call from any thread.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static NbtCompound encode(Snapshot snapshot) {
+        NbtCompound stat_info = snapshot.stat_info();
+        if (snapshot.entries() != null)
+            stat_info.putByteArray("score_data", ScoreCodec.encode(snapshot.entries()));
+        return stat_info;
+    }
+
+    /**
+     * A copy of a stat, taken at a certain version.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public record Snapshot(CustomStatistic statistic, int version, NbtCompound stat_info, long[] entries) {}
+
     /**
      * Generate stat from NBT.
      *
      * @author   Jade Godwin          <icanhasabanana@gmail.com>
      * @since    0.2.0
      */
-    public static CustomStatistic fromNbt(NbtElement nbt) {
+    public static CustomStatistic fromNbt(NbtElement nbt, CustomStatisticsAugment augment) {
         // Only load if all the data is present.
         if (nbt instanceof NbtCompound compound &&
                 compound.contains("owner_name", NbtElement.STRING_TYPE) &&
@@ -185,29 +612,54 @@ public class CustomStatistic {
 
             // Instantiate custom statistic object.
             CustomStatistic customStatistic = new CustomStatistic(
-                    key, compound.getString("display_name"), compound.getString("owner_name"));
+                    key, compound.getString("display_name"), compound.getString("owner_name"), augment);
 
             // Pull maintainers, if exists.
             if (compound.contains("maintainers", NbtElement.LIST_TYPE)) {
                 NbtList maintainers_list = compound.getList("maintainers", NbtElement.STRING_TYPE);
                 maintainers_list.forEach(nbtElement -> {
-                    customStatistic.addMaintainer(nbtElement.asString());
+                    customStatistic.maintainers.add(nbtElement.asString());
                 });
             }
 
-            // Pull scores, if exists.
-            if (compound.contains("scores", NbtElement.COMPOUND_TYPE)) {
+            // Pull scores, if exists. They are only decoded once something needs them.
+            boolean is_packed = compound.contains("score_data", NbtElement.BYTE_ARRAY_TYPE);
+            if (is_packed) {
+                customStatistic.score_data = compound.getByteArray("score_data");
+            }
+
+            // Migrate the scores of the old layout, which were stored by player name.
+            else if (compound.contains("scores", NbtElement.COMPOUND_TYPE)) {
                 NbtCompound scores = compound.getCompound("scores");
                 scores.getKeys().forEach(username -> {
                     customStatistic.setScore(username, scores.getInt(username));
                 });
             }
 
+            // Pull score history, if exists.
+            // (Fields are set directly: loading is not a change, so nothing may be marked dirty.)
+            if (compound.contains("history", NbtElement.COMPOUND_TYPE)) {
+                NbtCompound history = compound.getCompound("history");
+                history.getKeys().forEach(window_name -> {
+                    HistoryWindow window = HistoryWindow.getByName(window_name);
+                    if (window == null) return;
+                    ScoreHistory score_history = new ScoreHistory(window);
+                    score_history.readFromNbt(history.getCompound(window_name));
+                    customStatistic.history.put(window, score_history);
+                });
+            }
+
             // Pull format, if exists.
             if (compound.contains("format", NbtElement.STRING_TYPE)) {
                 StatFormat format = StatFormat.getByName(compound.getString("format"));
                 if (format != null)
-                    customStatistic.setFormat(format);
+                    customStatistic.format = format;
+            }
+
+            // Until it changes, the stat can be saved as it was loaded, without decoding its scores.
+            if (is_packed) {
+                customStatistic.encoded_nbt = compound;
+                customStatistic.encoded_version = customStatistic.version;
             }
 
             // Return.
@@ -219,6 +671,57 @@ public class CustomStatistic {
         return null;
     }
 
+    /**
+     * Get everything but the scores as NBT, for the journal.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public NbtCompound getMetadataNbt() {
+        NbtList maintainers = new NbtList();
+        this.maintainers.forEach(name -> maintainers.add(NbtString.of(name)));
+        NbtList history_windows = new NbtList();
+        this.history.keySet().forEach(window -> history_windows.add(NbtString.of(window.asString())));
+
+        NbtCompound metadata = new NbtCompound();
+        metadata.putString("display_name", this.display_name);
+        metadata.putString("owner_name", this.owner_name);
+        metadata.putString("format", this.format.asString());
+        metadata.put("maintainers", maintainers);
+        metadata.put("history_windows", history_windows);
+        return metadata;
+    }
+
+    /**
+     * Apply metadata that was logged to the journal.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void applyMetadataNbt(NbtCompound metadata) {
+        this.augment.unindexPlayers(this);
+        this.display_name = metadata.getString("display_name");
+        this.owner_name = metadata.getString("owner_name");
+
+        StatFormat format = StatFormat.getByName(metadata.getString("format"));
+        if (format != null) this.format = format;
+
+        this.maintainers.clear();
+        metadata.getList("maintainers", NbtElement.STRING_TYPE).forEach(nbtElement -> this.maintainers.add(nbtElement.asString()));
+        this.augment.indexPlayers(this);
+
+        // Enable the logged history windows, and disable the others.
+        Set<HistoryWindow> windows = EnumSet.noneOf(HistoryWindow.class);
+        metadata.getList("history_windows", NbtElement.STRING_TYPE).forEach(nbtElement -> {
+            HistoryWindow window = HistoryWindow.getByName(nbtElement.asString());
+            if (window != null) windows.add(window);
+        });
+        this.history.keySet().retainAll(windows);
+        windows.forEach(window -> this.history.computeIfAbsent(window, ScoreHistory::new));
+
+        this.markDirty();
+    }
+
     /**
      * Write stat to NBT.
      *
@@ -226,22 +729,6 @@ public class CustomStatistic {
      * @since    0.2.0
      */
     public NbtCompound toNbt() {
-        // Put maintainers and scores in nbt structures.
-        NbtList maintainers = new NbtList();
-        this.maintainers.forEach(name -> { maintainers.add(NbtString.of(name)); });
-        NbtCompound scores = new NbtCompound();
-        this.scores.forEach(scores::putInt);
-
-        // Put everything else.
-        NbtCompound stat_info = new NbtCompound();
-        stat_info.putString("key", this.key.toString());
-        stat_info.putString("display_name", this.display_name);
-        stat_info.putString("owner_name", this.owner_name);
-        stat_info.putString("format", this.format.asString());
-        stat_info.put("maintainers", maintainers);
-        stat_info.put("scores", scores);
-
-        // Return.
-        return stat_info;
+        return encode(this.snapshot());
     }
 }
@@ -1,24 +1,68 @@
 package rocks.blackblock.topper.statistics;
 
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
 import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.WorldSavePath;
 import rocks.blackblock.bib.BibMod;
 import rocks.blackblock.bib.augment.Augment;
 import rocks.blackblock.topper.BlackBlockTopper;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CustomStatisticsAugment implements Augment.Global {
 
     private static CustomStatisticsAugment INSTANCE = null;
+    private static final int ENCODE_INTERVAL = 20;
+    private static final ExecutorService ENCODER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Topper Stat Encoder");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final List<CustomStatistic> customStatisticList = new ArrayList<>();
-    private boolean is_dirty = false;
+    private final HashMap<String, CustomStatistic> statistics_by_path = new HashMap<>();
+
+    // Player name -> the stats they own or maintain, and the key suggestions built from them
+    private final HashMap<String, LinkedHashSet<CustomStatistic>> owned_by_player = new HashMap<>();
+    private final HashMap<String, LinkedHashSet<CustomStatistic>> maintained_by_player = new HashMap<>();
+    private final HashMap<String, String[]> suggestion_cache = new HashMap<>();
+    private final PlayerSymbolTable players = new PlayerSymbolTable();
+    private final PlayerScoreIndex score_index = new PlayerScoreIndex();
+    private final PendingScores pending_scores = new PendingScores();
+    private volatile boolean is_dirty = false;
+
+    // Every change since the last save is logged here, so a crash does not lose it
+    private ScoreJournal journal = null;
+    private StatisticsStorage storage = null;
+    private boolean expects_file = false;
+    private long journal_generation = 0;
+
+    // Changed stats are encoded in the background, at most once per interval
+    private CompletableFuture<List<CustomStatistic.Snapshot>> encoding = null;
+    private int ticks_since_encode = 0;
+
+    // The last published read-only snapshot, and whether a stat was added, removed or had its metadata changed since
+    private volatile StatisticsSnapshot snapshot = StatisticsSnapshot.EMPTY;
+    private int snapshot_players_version = -1;
+    private boolean snapshot_stale = true;
+
+    // Bumped whenever a stat is added, removed or has its metadata changed
+    private int metadata_version = 0;
 
     public CustomStatisticsAugment() {
         if (INSTANCE != null) {
@@ -29,6 +73,21 @@ public class CustomStatisticsAugment implements Augment.Global {
         }
     }
 
+    /**
+     * Get a number that changes whenever a custom stat is added, removed or has its metadata changed.
+     * Score changes are counted per player by the score index instead.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getMetadataVersion() { return this.metadata_version; }
+
+    // Called by the stats when their metadata changes, so the next snapshot and the open screens show it
+    void onMetadataChanged() {
+        this.snapshot_stale = true;
+        this.metadata_version++;
+    }
+
     @Override
     public boolean isDirty() { return this.is_dirty; }
 
@@ -43,15 +102,64 @@ public class CustomStatisticsAugment implements Augment.Global {
      */
     @Override
     public void readFromNbt(NbtCompound nbt, RegistryWrapper.WrapperLookup registryLookup) {
+        // Stats that are still stored inline are moved to the stats file on the next save.
+        // Otherwise they are loaded from the stats file once the server has started.
+        this.expects_file = nbt.contains("storage", NbtElement.STRING_TYPE);
+        this.setDirty(this.loadData(nbt));
+    }
+
+    /**
+     * Load the stats out of the given saved data.
+     *
+     * @return   True if the data has to be saved again in the current format
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private boolean loadData(NbtCompound nbt) {
+        // The journal generations before this one are already part of the saved data.
+        this.journal_generation = nbt.getLong("journal_generation");
+
+        long start = System.nanoTime();
+
+        // Revive the player table first, so the scores can be linked to the right ids.
+        this.players.readFromNbt(nbt.getList("players", NbtElement.COMPOUND_TYPE));
+
         // Get custom statistics list.
         NbtList list = nbt.getList("custom_statistics", NbtElement.COMPOUND_TYPE);
 
         // For each entry in the list, add a new custom statistic.
         list.forEach(nbtElement -> {
-            CustomStatistic customStatistic = CustomStatistic.fromNbt(nbtElement);
+            CustomStatistic customStatistic = CustomStatistic.fromNbt(nbtElement, this);
             if (customStatistic != null)
-                customStatisticList.add(customStatistic);
+                this.addToList(customStatistic);
         });
+
+        if (!list.isEmpty())
+            BlackBlockTopper.LOGGER.info("Loaded " + customStatisticList.size() + " custom statistics in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        // Loading the stats is not a change, unless they still use the old score layout.
+        boolean migrated = !list.isEmpty() && this.storage == null;
+        for (NbtElement nbtElement : list)
+            if (nbtElement instanceof NbtCompound compound && compound.contains("scores", NbtElement.COMPOUND_TYPE))
+                migrated = true;
+        return migrated;
+    }
+
+    /**
+     * Forget all loaded stats, before loading newer data.
+     */
+    private void clear() {
+        customStatisticList.clear();
+        this.statistics_by_path.clear();
+        this.owned_by_player.clear();
+        this.maintained_by_player.clear();
+        this.suggestion_cache.clear();
+        this.score_index.clear();
+        this.players.clear();
+        this.pending_scores.clearKeys();
+        this.snapshot_stale = true;
+        this.metadata_version++;
     }
 
     /**
@@ -62,11 +170,59 @@ public class CustomStatisticsAugment implements Augment.Global {
      */
     @Override
     public NbtCompound writeToNbt(NbtCompound tag, RegistryWrapper.WrapperLookup registryLookup) {
+        // Before the server has started, the stats can only be stored inline.
+        if (this.storage == null) {
+            this.writeData(tag);
+            return tag;
+        }
+
+        // Otherwise they are written to their own file.
+        this.saveSnapshot();
+        tag.putString("storage", "file");
+        return tag;
+    }
+
+    /**
+     * Write a snapshot of all the stats to the stats file, in the background.
+     * Once it is on disk, the journal generations it contains can be deleted.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private void saveSnapshot() {
+        ScoreJournal journal = this.journal;
+        NbtCompound data = this.writeData(new NbtCompound());
+
+        long generation = this.journal_generation;
+        this.storage.saveInBackground(data, saved -> {
+            if (journal != null) journal.onSnapshotSaved(generation);
+        });
+    }
+
+    /**
+     * Write all the stats to the given compound.
+     * Changes made after this go to a new journal generation.
+     */
+    private NbtCompound writeData(NbtCompound data) {
+        // Make sure scores added from other threads are saved too.
+        this.applyPendingScores();
+
+        // Changes made after this point go to a new journal generation.
+        if (this.journal != null)
+            this.journal_generation = this.journal.rotate();
+
+        // Use the background encodes that are ready.
+        this.collectEncodedStatistics();
+
         // Create an NBT List and add each statistic compound to it.
         NbtList list = new NbtList();
-        customStatisticList.forEach(customStatistic -> list.add(customStatistic.toNbt()));
-        tag.put("custom_statistics", list);
-        return tag;
+        // Only the stats that changed since the last (background) encode are encoded here.
+        customStatisticList.forEach(customStatistic -> list.add(customStatistic.getSaveNbt()));
+
+        data.putLong("journal_generation", this.journal_generation);
+        data.put("custom_statistics", list);
+        data.put("players", this.players.toNbt());
+        return data;
     }
 
     /**
@@ -76,10 +232,19 @@ public class CustomStatisticsAugment implements Augment.Global {
      * @since    0.2.0
      */
     public CustomStatistic getCustomStatistic(String key) {
-        Identifier key_identifier = Identifier.of("bbstats", key);
-        for (CustomStatistic statistic : customStatisticList)
-            if (statistic.getKey().equals(key_identifier)) return statistic;
-        return null;
+        if (key == null) return null;
+        return this.statistics_by_path.get(key);
+    }
+
+    /**
+     * Get a custom statistic by its full key, without allocating anything.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public CustomStatistic getCustomStatistic(Identifier key) {
+        if (key == null || !key.getNamespace().equals("bbstats")) return null;
+        return this.statistics_by_path.get(key.getPath());
     }
 
     /**
@@ -112,27 +277,81 @@ public class CustomStatisticsAugment implements Augment.Global {
         if (player != null) {
             String player_name = player.getName().getString();
 
-            // If pertainability is owned, get all that have matching UUIDs in ownership.
-            if (pertainability == CustomStatisticPertainability.OWNS) {
-                customStatisticList.forEach(customStatistic -> {
-                    if (customStatistic.getOwner().equals(player_name))
-                        returned_list.add(customStatistic);
-                });
-            }
+            // If pertainability is owned, get all the stats the player owns.
+            if (pertainability == CustomStatisticPertainability.OWNS)
+                returned_list.addAll(this.owned_by_player.getOrDefault(player_name, new LinkedHashSet<>()));
 
-            // If pertainability is maintains, get all that have matching UUIDs in maintainers.
-            else if (pertainability == CustomStatisticPertainability.MAINTAINS) {
-                customStatisticList.forEach(customStatistic -> {
-                    if (customStatistic.isMaintainer(player_name))
-                        returned_list.add(customStatistic);
-                });
-            }
+            // If pertainability is maintains, get all the stats the player maintains.
+            else if (pertainability == CustomStatisticPertainability.MAINTAINS)
+                returned_list.addAll(this.maintained_by_player.getOrDefault(player_name, new LinkedHashSet<>()));
         }
 
         // Return.
         return returned_list;
     }
 
+    /**
+     * Get the sorted keys of the custom statistics that pertain to the given source,
+     * for command suggestions. The result is cached until a stat is added, removed or changes hands.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public String[] getCustomStatisticKeys(ServerCommandSource serverCommandSource, CustomStatisticPertainability pertainability) {
+        String cache_key;
+        if (pertainability == CustomStatisticPertainability.ALL || serverCommandSource.hasPermissionLevel(1))
+            cache_key = "";
+        else if (serverCommandSource.getPlayer() != null)
+            cache_key = pertainability.name() + ":" + serverCommandSource.getPlayer().getName().getString();
+        else
+            return new String[0];
+
+        String[] keys = this.suggestion_cache.get(cache_key);
+        if (keys == null) {
+            List<CustomStatistic> statistics = this.getCustomStatistics(serverCommandSource, pertainability);
+            keys = new String[statistics.size()];
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = statistics.get(i).getKey().getPath();
+            Arrays.sort(keys);
+            this.suggestion_cache.put(cache_key, keys);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Add the given stat to the owner & maintainer indices.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    void indexPlayers(CustomStatistic statistic) {
+        this.owned_by_player.computeIfAbsent(statistic.getOwner(), name -> new LinkedHashSet<>()).add(statistic);
+        for (String maintainer : statistic.getMaintainers())
+            this.maintained_by_player.computeIfAbsent(maintainer, name -> new LinkedHashSet<>()).add(statistic);
+        this.suggestion_cache.clear();
+    }
+
+    /**
+     * Remove the given stat from the owner & maintainer indices.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    void unindexPlayers(CustomStatistic statistic) {
+        removeFromPlayerIndex(this.owned_by_player, statistic.getOwner(), statistic);
+        for (String maintainer : statistic.getMaintainers())
+            removeFromPlayerIndex(this.maintained_by_player, maintainer, statistic);
+        this.suggestion_cache.clear();
+    }
+
+    private static void removeFromPlayerIndex(HashMap<String, LinkedHashSet<CustomStatistic>> index, String name, CustomStatistic statistic) {
+        LinkedHashSet<CustomStatistic> statistics = index.get(name);
+        if (statistics == null) return;
+        statistics.remove(statistic);
+        if (statistics.isEmpty()) index.remove(name);
+    }
+
     /**
      * Create a new custom statistic
      *
@@ -145,9 +364,10 @@ public class CustomStatisticsAugment implements Augment.Global {
             return 0;
 
         // Create and add a new CustomStatistic.
-        CustomStatistic new_stat = new CustomStatistic(Identifier.of("bbstats", key), name, owner_name);
-        customStatisticList.add(new_stat);
+        CustomStatistic new_stat = new CustomStatistic(Identifier.of("bbstats", key), name, owner_name, this);
+        this.addToList(new_stat);
         this.markDirty();
+        if (this.journal != null) this.journal.logCreate(key, name, owner_name);
         return 1;
     }
 
@@ -158,12 +378,313 @@ public class CustomStatisticsAugment implements Augment.Global {
      * @since    0.2.0
      */
     public int deleteCustomStatistic(CustomStatistic statistic) {
-        // Remove.
+        // Remove it and its scores from the reverse index.
         customStatisticList.remove(statistic);
+        this.snapshot_stale = true;
+        this.metadata_version++;
+        this.removeFromIndex(statistic);
+        this.unindexPlayers(statistic);
+
+        // Scores added from other threads can not go anywhere anymore.
+        String path = statistic.getKey().getPath();
+        if (statistic.getKey().getNamespace().equals("bbstats") && this.getCustomStatistic(path) == null)
+            this.pending_scores.unregister(path);
+
+        if (statistic.hasLoadedScores())
+            this.score_index.removeStatistic(statistic, statistic.getScoredPlayerIds());
         this.markDirty();
+        if (this.journal != null) this.journal.logDelete(statistic.getKey().getPath());
         return 1;
     }
 
+    /**
+     * Add a stat to the list and the key index.
+     * Only stats in the bbstats namespace can be looked up, and the first one of a key wins.
+     */
+    private void addToList(CustomStatistic statistic) {
+        customStatisticList.add(statistic);
+        this.snapshot_stale = true;
+        this.metadata_version++;
+        if (statistic.getKey().getNamespace().equals("bbstats")) {
+            this.statistics_by_path.putIfAbsent(statistic.getKey().getPath(), statistic);
+            this.pending_scores.register(statistic.getKey().getPath());
+        }
+        this.indexPlayers(statistic);
+    }
+
+    /**
+     * Remove a stat from the key index, falling back to another stat with the same key.
+     */
+    private void removeFromIndex(CustomStatistic statistic) {
+        String path = statistic.getKey().getPath();
+        if (!this.statistics_by_path.remove(path, statistic)) return;
+
+        for (CustomStatistic other : customStatisticList)
+            if (other.getKey().equals(statistic.getKey())) {
+                this.statistics_by_path.put(path, other);
+                return;
+            }
+    }
+
+    /**
+     * Add to a player's score from any thread.
+     * The delta is merged into a concurrent map without locking the statistics themselves,
+     * and is applied on the server thread at the start of the next tick.
+     *
+     * @return   False if there is no custom stat with the given key
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean addScoreConcurrently(String key, String target, int value) {
+        if (key == null || target == null || target.isEmpty()) return false;
+        if (value == 0) return true;
+        return this.pending_scores.add(key, target, value);
+    }
+
+    /**
+     * Apply all the score deltas that were added from other threads.
+     * Has to be called on the server thread, so readers there never see a half-applied update.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void applyPendingScores() {
+        if (this.pending_scores.isEmpty()) return;
+
+        int[] applied = {0};
+        int[] dropped = {0};
+
+        this.pending_scores.drain((key, target, delta) -> {
+            CustomStatistic statistic = this.getCustomStatistic(key);
+
+            // The stat was deleted after the delta was accepted.
+            if (statistic == null) {
+                dropped[0]++;
+                return;
+            }
+
+            statistic.addScore(target, delta);
+            applied[0]++;
+        });
+
+        if (dropped[0] > 0)
+            BlackBlockTopper.LOGGER.warn("Dropped " + dropped[0] + " score changes of deleted custom statistics");
+
+        if (applied[0] > 0) this.markDirty();
+    }
+
+    /**
+     * Get the server-wide player table the scores are keyed by.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public PlayerSymbolTable getPlayers() { return this.players; }
+
+    /**
+     * Get the reverse index of every player's non-zero custom stat scores.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public PlayerScoreIndex getScoreIndex() { return this.score_index; }
+
+    /**
+     * Get the non-zero scores of the given player in every custom stat.
+     * The stats whose scores were not decoded yet are decoded first.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public Reference2IntMap<CustomStatistic> getPlayerScores(int player_id) {
+        for (CustomStatistic statistic : this.customStatisticList)
+            statistic.loadScores();
+        return this.score_index.getScores(player_id);
+    }
+
+    /**
+     * Link the given player's UUID to their current name.
+     * Called when a player joins, so renamed players keep their scores.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void registerPlayer(ServerPlayerEntity player) {
+        if (!this.players.register(player.getUuid(), player.getGameProfile().getName())) return;
+
+        this.markDirty();
+        if (this.journal != null) this.journal.logPlayer(player.getUuid(), player.getGameProfile().getName());
+    }
+
+    /**
+     * Load the stats file of the given server's world and open its score journal,
+     * replaying every change that was not saved before the server stopped.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void openStorage(MinecraftServer server) {
+        this.openStorage(server.getSavePath(WorldSavePath.ROOT).resolve("blackblock_topper"));
+    }
+
+    /**
+     * Load the stats file in the given directory and open its score journal
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void openStorage(Path directory) {
+        if (this.storage != null) return;
+
+        this.storage = new StatisticsStorage(directory);
+
+        // The stats file is always at least as new as stats that were still stored inline.
+        NbtCompound data = this.storage.load();
+        if (data != null) {
+            this.clear();
+            this.setDirty(this.loadData(data));
+        } else if (this.expects_file) {
+            BlackBlockTopper.LOGGER.error("The custom statistics file is missing, only the score journal can be replayed");
+        }
+
+        try {
+            this.journal = ScoreJournal.open(directory, this.journal_generation, this);
+        } catch (IOException e) {
+            BlackBlockTopper.LOGGER.error("Failed to open the score journal, changes are only kept on save", e);
+        }
+    }
+
+    /**
+     * Wait for the pending saves, then write out the remaining journal records and close it.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void closeStorage() {
+        // Forget the storage, so the next world opens its own directory.
+        if (this.storage != null) this.storage.close();
+        this.storage = null;
+        if (this.journal == null) return;
+        this.journal.close();
+        this.journal = null;
+    }
+
+    /**
+     * Get the open score journal, if any.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public ScoreJournal getJournal() { return this.journal; }
+
+    /**
+     * Called at the start of every server tick.
+     * Applies the scores added from other threads, and saves a new snapshot once the journal
+     * has grown large enough, so the generations it contains can be deleted.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void tick() {
+        this.applyPendingScores();
+
+        // Saving the snapshot rotates the journal, so this only happens once per compaction.
+        if (this.journal != null && this.storage != null && this.journal.needsCompaction())
+            this.saveSnapshot();
+
+        this.collectEncodedStatistics();
+
+        // Score changes are not part of the snapshot, so it only has to be republished after other changes.
+        if (this.isSnapshotStale())
+            this.getSnapshot();
+
+        // Changes made while an encode is running are picked up by the next one.
+        if (this.is_dirty && this.encoding == null && ++this.ticks_since_encode >= ENCODE_INTERVAL) {
+            this.ticks_since_encode = 0;
+            this.encodeInBackground();
+        }
+    }
+
+    /**
+     * Get an up-to-date read-only snapshot of all the custom stats.
+     * Has to be called on the server thread: the snapshot is republished if a stat was added, removed
+     * or had its metadata changed, or if a player was added or renamed. Score changes do not affect it.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public StatisticsSnapshot getSnapshot() {
+        StatisticsSnapshot current = this.snapshot;
+        if (!this.isSnapshotStale()) return current;
+
+        // The views of the stats whose metadata did not change are reused.
+        List<StatisticView> views = new ArrayList<>(this.customStatisticList.size());
+        for (CustomStatistic customStatistic : this.customStatisticList)
+            views.add(customStatistic.getView());
+
+        // The player names are only copied when a player was added or renamed.
+        String[] names = current.getPlayerNames();
+        if (this.players.getVersion() != this.snapshot_players_version) {
+            names = this.players.copyNames();
+            this.snapshot_players_version = this.players.getVersion();
+        }
+
+        this.snapshot_stale = false;
+        this.snapshot = new StatisticsSnapshot(current.getVersion() + 1, views, names);
+        return this.snapshot;
+    }
+
+    private boolean isSnapshotStale() {
+        return this.snapshot_stale || this.players.getVersion() != this.snapshot_players_version;
+    }
+
+    /**
+     * Get the last published snapshot. This can be called from any thread,
+     * and is at most one tick behind the live stats.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public StatisticsSnapshot getPublishedSnapshot() { return this.snapshot; }
+
+    /**
+     * Snapshot the changed stats on the server thread and encode them on the encoder thread,
+     * so the next save only has to encode the stats that changed after that.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private void encodeInBackground() {
+        List<CustomStatistic.Snapshot> snapshots = new ArrayList<>();
+        for (CustomStatistic statistic : this.customStatisticList)
+            if (statistic.isDirty()) snapshots.add(statistic.snapshot());
+
+        if (snapshots.isEmpty()) return;
+
+        this.encoding = CompletableFuture.supplyAsync(() -> {
+            for (CustomStatistic.Snapshot snapshot : snapshots)
+                CustomStatistic.encode(snapshot);
+            return snapshots;
+        }, ENCODER);
+    }
+
+    /**
+     * Hand the finished background encodes to their stats.
+     */
+    private void collectEncodedStatistics() {
+        if (this.encoding == null || !this.encoding.isDone()) return;
+
+        try {
+            for (CustomStatistic.Snapshot snapshot : this.encoding.join())
+                snapshot.statistic().setEncodedNbt(snapshot.version(), snapshot.stat_info());
+        } catch (RuntimeException e) {
+            BlackBlockTopper.LOGGER.error("Failed to encode the custom statistics", e);
+        }
+
+        this.encoding = null;
+    }
+
     /**
      * Get the CustomStatisticsAugment instance
      *
@@ -0,0 +1,90 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.stat.StatFormatter;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.Identifier;
+
+/**
+ * A single row of the GENERAL tab of the statistics screen.
+ * Filtering and sorting only work on these rows,
+ * the actual ItemStacks are only created for the rows on the visible page.
+ *
+ * @param    id            The identifier of the stat
+ * @param    display_key   The translation key of a mod stat, or the display name of a custom stat
+ * @param    name          The resolved display name, used for sorting
+ * @param    owner         The owner of a custom stat, or null for mod stats
+ * @param    value         The player's value of the stat
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public record GeneralStatRow(
+        Identifier id,
+        String display_key,
+        String name,
+        String owner,
+        int value,
+        StatFormatter formatter,
+        Item item,
+        CustomStatistic statistic
+) {
+
+    /**
+     * Create the row of a mod-level stat
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static GeneralStatRow ofModStat(Identifier id, Item item, StatFormatter formatter, int value) {
+        String display_key = "stat." + id.toTranslationKey();
+        return new GeneralStatRow(id, display_key, Text.translatable(display_key).getString(), null, value, formatter, item, null);
+    }
+
+    /**
+     * Create the row of a custom stat
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static GeneralStatRow ofCustomStat(CustomStatistic statistic, int value) {
+        String display_name = statistic.getDisplayName();
+        return new GeneralStatRow(statistic.getKey(), display_name, display_name, statistic.getOwner(), value, statistic.getFormat().getFormatter(), null, statistic);
+    }
+
+    /**
+     * Is this the row of a custom stat?
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean isCustom() { return this.statistic != null; }
+
+    /**
+     * Get the title of this row: the name of the stat and its formatted value
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public MutableText getTitle() {
+        MutableText title = this.isCustom() ? Text.literal(this.display_key) : Text.translatable(this.display_key);
+        return title.append(Text.literal(": ").append(Text.literal(this.formatter.format(this.value)).formatted(Formatting.WHITE))).setStyle(Style.EMPTY.withColor(Formatting.YELLOW).withItalic(false));
+    }
+
+    /**
+     * Create the ItemStack to display this row with
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public ItemStack createStack() {
+        ItemStack stack = this.isCustom() ? this.statistic.getDisplayItem().copy() : new ItemStack(this.item);
+        stack.set(DataComponentTypes.CUSTOM_NAME, this.getTitle());
+        return stack;
+    }
+}
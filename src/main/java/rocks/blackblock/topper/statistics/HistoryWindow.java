@@ -0,0 +1,77 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.util.StringIdentifiable;
+
+import java.time.LocalDate;
+
+/**
+ * The time windows a custom statistic can keep a score history for.
+ * All windows are calculated in UTC, weeks start on Monday.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public enum HistoryWindow implements StringIdentifiable {
+
+    DAILY("daily", "today", 14),
+    WEEKLY("weekly", "this week", 8),
+    MONTHLY("monthly", "this month", 12),
+    SEASONAL("seasonal", "this season", 4);
+
+    private final String name;
+    private final String current_name;
+    private final int bucket_count;
+
+    private HistoryWindow(String name, String current_name, int bucket_count) {
+        this.name = name; this.current_name = current_name; this.bucket_count = bucket_count;
+    }
+    public String toString() { return this.asString(); }
+    public String asString() { return this.name; }
+    public String getCurrentName() { return this.current_name; }
+    public int getBucketCount() { return this.bucket_count; }
+
+    /**
+     * Get the window id the given day falls in.
+     * Consecutive windows have consecutive ids.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public long getWindowId(long epoch_day) {
+        return switch (this) {
+            case DAILY -> epoch_day;
+            // The epoch started on a Thursday
+            case WEEKLY -> Math.floorDiv(epoch_day + 3, 7);
+            case MONTHLY -> {
+                LocalDate date = LocalDate.ofEpochDay(epoch_day);
+                yield date.getYear() * 12L + date.getMonthValue() - 1;
+            }
+            case SEASONAL -> {
+                LocalDate date = LocalDate.ofEpochDay(epoch_day);
+                yield date.getYear() * 4L + (date.getMonthValue() - 1) / 3;
+            }
+        };
+    }
+
+    /**
+     * Get the current day, counted from the epoch in UTC.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static long getCurrentEpochDay() {
+        return Math.floorDiv(System.currentTimeMillis(), 86_400_000L);
+    }
+
+    /**
+     * Get a window by its name.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static HistoryWindow getByName(String name) {
+        for (HistoryWindow window : values())
+            if (window.name.equals(name)) return window;
+        return null;
+    }
+}
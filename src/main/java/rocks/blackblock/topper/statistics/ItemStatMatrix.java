@@ -0,0 +1,166 @@
+package rocks.blackblock.topper.statistics;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.item.BlockItem;
+import net.minecraft.item.Item;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.stat.ServerStatHandler;
+import net.minecraft.stat.Stat;
+import net.minecraft.stat.StatType;
+import net.minecraft.stat.Stats;
+import rocks.blackblock.topper.BlackBlockTopper;
+
+import java.util.List;
+
+/**
+ * All the item stats of a single player that the statistics screen shows, as one int[items][6] matrix.
+ * It is built once per player session and only rebuilt after one of these stats actually changed,
+ * so filtering, sorting and the lore of the ITEMS tab never have to query the stat handler.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class ItemStatMatrix {
+
+    public static final int MINED = 0;
+    public static final int CRAFTED = 1;
+    public static final int USED = 2;
+    public static final int BROKEN = 3;
+    public static final int PICKED_UP = 4;
+    public static final int DROPPED = 5;
+    public static final int COLUMNS = 6;
+
+    private static final int[] EMPTY_ROW = new int[COLUMNS];
+
+    // The creative items the set of tracked items was made from
+    private static List<Item> tracked_list = null;
+    private static ReferenceOpenHashSet<Item> tracked_items = null;
+
+    private final List<Item> items;
+    private final int version;
+    private final Reference2IntOpenHashMap<Item> rows = new Reference2IntOpenHashMap<>();
+    private final int[][] values;
+
+    private ItemStatMatrix(ServerStatHandler handler, List<Item> items, int version) {
+        this.items = items;
+        this.version = version;
+        this.values = new int[items.size()][];
+        this.rows.defaultReturnValue(-1);
+
+        for (int row = 0; row < items.size(); row++) {
+            Item item = items.get(row);
+            int[] row_values = new int[COLUMNS];
+            row_values[MINED] = item instanceof BlockItem blockItem ? handler.getStat(Stats.MINED.getOrCreateStat(blockItem.getBlock())) : 0;
+            row_values[CRAFTED] = handler.getStat(Stats.CRAFTED.getOrCreateStat(item));
+            row_values[USED] = handler.getStat(Stats.USED.getOrCreateStat(item));
+            row_values[BROKEN] = handler.getStat(Stats.BROKEN.getOrCreateStat(item));
+            row_values[PICKED_UP] = handler.getStat(Stats.PICKED_UP.getOrCreateStat(item));
+            row_values[DROPPED] = handler.getStat(Stats.DROPPED.getOrCreateStat(item));
+            this.values[row] = row_values;
+            this.rows.putIfAbsent(item, row);
+        }
+    }
+
+    /**
+     * Get the up-to-date matrix of the given player over the given items.
+     * The cached matrix of the player's session is reused if none of its stats changed.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static ItemStatMatrix get(ServerPlayerEntity player, List<Item> items) {
+        ServerStatHandler handler = player.getStatHandler();
+        ItemStatTracker tracker = (ItemStatTracker) handler;
+        ItemStatMatrix matrix = tracker.topper$getItemStatMatrix();
+
+        if (matrix == null || matrix.items != items || matrix.version != tracker.topper$getItemStatVersion()) {
+            matrix = new ItemStatMatrix(handler, items, tracker.topper$getItemStatVersion());
+            tracker.topper$setItemStatMatrix(matrix);
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Is the given stat part of the matrix?
+     * It has to be one of the columns, of one of the creative items.
+     * Mined stats are kept per block, so those are checked by the block's item.
+     * This is called from the stat handler on the tick, so it never builds the creative list itself:
+     * as long as there is none, no matrix can be up-to-date anyway and every item stat counts.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static boolean isTracked(Stat<?> stat) {
+        int column = getColumn(stat.getType());
+        if (column == -1) return false;
+
+        Item item;
+        if (column == MINED) item = stat.getValue() instanceof Block block ? block.asItem() : null;
+        else item = stat.getValue() instanceof Item stat_item ? stat_item : null;
+
+        if (item == null) return false;
+
+        ReferenceOpenHashSet<Item> items = getTrackedItems();
+        return items == null || items.contains(item);
+    }
+
+    /**
+     * Get the creative items as a set, or null if the flattened list of creative items was not made yet.
+     * It is only made again once that list was.
+     */
+    private static ReferenceOpenHashSet<Item> getTrackedItems() {
+        List<Item> items = BlackBlockTopper.CREATIVE_ITEMS_FLATTENED;
+        if (items == null) return null;
+
+        if (tracked_list != items) {
+            tracked_items = new ReferenceOpenHashSet<>(items);
+            tracked_list = items;
+        }
+
+        return tracked_items;
+    }
+
+    /**
+     * Get the column of the given item stat type, or -1.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static int getColumn(StatType<?> type) {
+        if (type == Stats.MINED) return MINED;
+        if (type == Stats.CRAFTED) return CRAFTED;
+        if (type == Stats.USED) return USED;
+        if (type == Stats.BROKEN) return BROKEN;
+        if (type == Stats.PICKED_UP) return PICKED_UP;
+        if (type == Stats.DROPPED) return DROPPED;
+        return -1;
+    }
+
+    /**
+     * Get all the stats of the given item. The returned row must not be modified.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int[] getRow(Item item) {
+        int row = this.rows.getInt(item);
+        return row == -1 ? EMPTY_ROW : this.values[row];
+    }
+
+    public int get(Item item, int column) { return this.getRow(item)[column]; }
+
+    /**
+     * Are all the stats of the given item 0?
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean isEmpty(Item item) {
+        for (int value : this.getRow(item))
+            if (value != 0) return false;
+        return true;
+    }
+}
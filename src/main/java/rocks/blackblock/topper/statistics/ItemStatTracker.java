@@ -0,0 +1,27 @@
+package rocks.blackblock.topper.statistics;
+
+/**
+ * Implemented by the ServerStatHandler (through a mixin),
+ * so the statistics screen knows when a player's stats changed.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public interface ItemStatTracker {
+
+    /**
+     * Get a number that changes whenever one of the item stats in the matrix changes.
+     */
+    int topper$getItemStatVersion();
+
+    /**
+     * Get a number that changes whenever one of the stats of the GENERAL tab changes.
+     */
+    int topper$getStatVersion();
+
+    /**
+     * Get & set the cached item stat matrix of this player's session.
+     */
+    ItemStatMatrix topper$getItemStatMatrix();
+    void topper$setItemStatMatrix(ItemStatMatrix matrix);
+}
@@ -0,0 +1,122 @@
+package rocks.blackblock.topper.statistics;
+
+/**
+ * A materialized copy of the top entries of a custom statistic's rank index.
+ * Score changes only invalidate it when they can affect the top, and it is rebuilt lazily
+ * the next time a page inside of it is requested.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class LeaderboardCache {
+
+    public static final int DEFAULT_CAPACITY = 200;
+
+    private final ScoreRankIndex rank_index;
+    private final int capacity;
+    private final int[] ids;
+    private final int[] scores;
+    private final int[] ranks;
+    private int count = 0;
+    private boolean stale = true;
+
+    public LeaderboardCache(ScoreRankIndex rank_index) {
+        this(rank_index, DEFAULT_CAPACITY);
+    }
+
+    public LeaderboardCache(ScoreRankIndex rank_index, int capacity) {
+        this.rank_index = rank_index;
+        this.capacity = capacity;
+        this.ids = new int[capacity];
+        this.scores = new int[capacity];
+        this.ranks = new int[capacity];
+    }
+
+    /**
+     * Let the cache know a score changed.
+     * The cache is only invalidated when the old or the new score could be part of the top.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void onScoreChanged(boolean existed, int old_score, int new_score) {
+        if (this.stale) return;
+
+        // When the cache holds every entry, any change matters.
+        if (this.count < this.capacity) {
+            this.stale = true;
+            return;
+        }
+
+        int threshold = this.scores[this.count - 1];
+        if (new_score >= threshold || (existed && old_score >= threshold))
+            this.stale = true;
+    }
+
+    /**
+     * Mark the cache as stale.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void invalidate() { this.stale = true; }
+
+    /**
+     * Get the entries at the given 0-based positions.
+     * Positions inside the cache are served from it, the rest fall back to the rank index.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public LeaderboardEntry[] getEntries(int from, int amount, PlayerSymbolTable players) {
+        int end = Math.min(from + amount, this.rank_index.size());
+        if (from < 0 || from >= end) return new LeaderboardEntry[0];
+
+        if (this.stale) this.rebuild();
+
+        LeaderboardEntry[] entries = new LeaderboardEntry[end - from];
+        for (int position = from; position < end; position++) {
+            int id, score, rank;
+
+            if (position < this.count) {
+                id = this.ids[position];
+                score = this.scores[position];
+                rank = this.ranks[position];
+            } else {
+                id = this.rank_index.select(position);
+                score = this.rank_index.getScore(id);
+                rank = this.rank_index.countGreater(score) + 1;
+            }
+
+            entries[position - from] = new LeaderboardEntry(rank, id, players.getName(id), score);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Copy the top of the rank index into the cache.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private void rebuild() {
+        this.count = Math.min(this.capacity, this.rank_index.size());
+
+        for (int position = 0; position < this.count; position++) {
+            int id = this.rank_index.select(position);
+            int score = this.rank_index.getScore(id);
+
+            this.ids[position] = id;
+            this.scores[position] = score;
+
+            // Equal scores share a rank.
+            if (position > 0 && this.scores[position - 1] == score)
+                this.ranks[position] = this.ranks[position - 1];
+            else
+                this.ranks[position] = position + 1;
+        }
+
+        this.stale = false;
+    }
+}
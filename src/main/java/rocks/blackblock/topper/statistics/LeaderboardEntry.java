@@ -0,0 +1,10 @@
+package rocks.blackblock.topper.statistics;
+
+/**
+ * A single row of a custom statistic's leaderboard.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public record LeaderboardEntry(int rank, int player_id, String name, int score) {
+}
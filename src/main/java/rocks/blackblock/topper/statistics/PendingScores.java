@@ -0,0 +1,102 @@
+package rocks.blackblock.topper.statistics;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Score deltas added from other threads, waiting to be applied on the server thread.
+ *
+ * Deltas can only be added to registered stat keys. The deltas of a stat are merged inside
+ * a compute on its entry, and draining removes that entry as a whole before reading it,
+ * so an add either lands in the drained map or in a new one for the next drain.
+ * Nothing is kept around for stats that have no pending deltas.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class PendingScores {
+
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Object2IntOpenHashMap<String>> deltas = new ConcurrentHashMap<>();
+
+    /**
+     * Allow deltas to be added to the given stat key
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void register(String key) { this.keys.add(key); }
+
+    /**
+     * Stop accepting deltas for the given stat key, and drop the ones that are still pending
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void unregister(String key) {
+        this.keys.remove(key);
+        this.deltas.remove(key);
+    }
+
+    /**
+     * Forget all registered keys. Pending deltas are kept until the next drain.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void clearKeys() { this.keys.clear(); }
+
+    /**
+     * Add a delta from any thread
+     *
+     * @return   False if the stat key is unknown and the delta was rejected
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean add(String key, String target, int value) {
+        if (!this.keys.contains(key)) return false;
+
+        this.deltas.compute(key, (k, targets) -> {
+            if (targets == null) targets = new Object2IntOpenHashMap<>();
+            targets.addTo(target, value);
+            return targets;
+        });
+
+        return true;
+    }
+
+    /**
+     * Hand all pending deltas to the consumer, removing them
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void drain(DeltaConsumer consumer) {
+        for (String key : this.deltas.keySet()) {
+            // Once removed, no other thread can write to this map anymore.
+            Object2IntOpenHashMap<String> targets = this.deltas.remove(key);
+            if (targets == null) continue;
+
+            for (Object2IntMap.Entry<String> entry : targets.object2IntEntrySet())
+                if (entry.getIntValue() != 0)
+                    consumer.accept(key, entry.getKey(), entry.getIntValue());
+        }
+    }
+
+    public boolean isEmpty() { return this.deltas.isEmpty(); }
+
+    /**
+     * Receives drained deltas.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    @FunctionalInterface
+    public interface DeltaConsumer {
+        void accept(String key, String target, int delta);
+    }
+}
@@ -0,0 +1,98 @@
+package rocks.blackblock.topper.statistics;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMaps;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+/**
+ * Reverse index of the custom statistic scores: player id -> (statistic -> score).
+ * Only non-zero scores are kept, so a player's entry lists exactly the stats they have a score in.
+ * It is kept in sync by the statistics themselves on every score write,
+ * and counts the changes per player so an open screen only has to look at its own viewer's scores.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class PlayerScoreIndex {
+
+    private final Int2ObjectOpenHashMap<Reference2IntOpenHashMap<CustomStatistic>> scores_by_player = new Int2ObjectOpenHashMap<>();
+
+    // Bumped whenever one of a player's scores changes, never reset
+    private final Int2IntOpenHashMap change_versions = new Int2IntOpenHashMap();
+
+    /**
+     * Update the score of a player in the given statistic.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void update(int player_id, CustomStatistic statistic, int score) {
+        this.change_versions.addTo(player_id, 1);
+        this.load(player_id, statistic, score);
+    }
+
+    /**
+     * Add a score that was loaded from disk: the score did not change, so the player's change version stays the same.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void load(int player_id, CustomStatistic statistic, int score) {
+        Reference2IntOpenHashMap<CustomStatistic> player_scores = this.scores_by_player.get(player_id);
+
+        if (score == 0) {
+            if (player_scores == null) return;
+            player_scores.removeInt(statistic);
+            if (player_scores.isEmpty()) this.scores_by_player.remove(player_id);
+            return;
+        }
+
+        if (player_scores == null) {
+            player_scores = new Reference2IntOpenHashMap<>();
+            this.scores_by_player.put(player_id, player_scores);
+        }
+
+        player_scores.put(statistic, score);
+    }
+
+    /**
+     * Remove every score of the given statistic.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void removeStatistic(CustomStatistic statistic, int[] player_ids) {
+        for (int player_id : player_ids)
+            this.update(player_id, statistic, 0);
+    }
+
+    /**
+     * Forget every score.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void clear() { this.scores_by_player.clear(); }
+
+    /**
+     * Get a number that changes whenever one of the given player's scores changes.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getChangeVersion(int player_id) { return this.change_versions.get(player_id); }
+
+    /**
+     * Get the non-zero scores of the given player.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public Reference2IntMap<CustomStatistic> getScores(int player_id) {
+        Reference2IntOpenHashMap<CustomStatistic> player_scores = this.scores_by_player.get(player_id);
+        if (player_scores == null) return Reference2IntMaps.emptyMap();
+        return Reference2IntMaps.unmodifiable(player_scores);
+    }
+}
@@ -0,0 +1,282 @@
+package rocks.blackblock.topper.statistics;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Server-wide table that maps player names and UUIDs to a dense integer id.
+ * Custom statistics store their scores per id, so a player's name is only stored once
+ * and a renamed player keeps all of their scores.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class PlayerSymbolTable {
+
+    public static final int UNKNOWN = -1;
+
+    private final Object2IntOpenHashMap<String> ids_by_name = new Object2IntOpenHashMap<>();
+    private final Object2IntOpenHashMap<UUID> ids_by_uuid = new Object2IntOpenHashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<UUID> uuids = new ArrayList<>();
+    private NbtList encoded_nbt = null;
+    private int version = 0;
+
+    public PlayerSymbolTable() {
+        this.ids_by_name.defaultReturnValue(UNKNOWN);
+        this.ids_by_uuid.defaultReturnValue(UNKNOWN);
+    }
+
+    /**
+     * Get the id of the given player name, or UNKNOWN if the name has never been seen.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getId(String name) {
+        if (name == null) return UNKNOWN;
+        return this.ids_by_name.getInt(name);
+    }
+
+    /**
+     * Get the id of the given player UUID, or UNKNOWN if the UUID has never been seen.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getId(UUID uuid) {
+        if (uuid == null) return UNKNOWN;
+        return this.ids_by_uuid.getInt(uuid);
+    }
+
+    /**
+     * Get the id of the given player name, creating a new one if needed.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getOrCreateId(@NotNull String name) {
+        int id = this.ids_by_name.getInt(name);
+        if (id != UNKNOWN) return id;
+        return this.createId(name);
+    }
+
+    /**
+     * Get the current name of the player with the given id.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    @Nullable
+    public String getName(int id) {
+        if (id < 0 || id >= this.names.size()) return null;
+        return this.names.get(id);
+    }
+
+    /**
+     * Get the UUID of the player with the given id, if it is known.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    @Nullable
+    public UUID getUuid(int id) {
+        if (id < 0 || id >= this.uuids.size()) return null;
+        return this.uuids.get(id);
+    }
+
+    /**
+     * Get the amount of ids that have been handed out.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int size() { return this.names.size(); }
+
+    /**
+     * Get a number that changes whenever a player is added or renamed.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getVersion() { return this.version; }
+
+    /**
+     * Copy the current names, indexed by id.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public String[] copyNames() { return this.names.toArray(new String[0]); }
+
+    /**
+     * Link a player's UUID to their current name.
+     * If the UUID is already known under another name, the existing id is renamed,
+     * so every score stays attached to the player without touching the statistics themselves.
+     * If another id still holds the new name, that id is retired first.
+     *
+     * @return   True if the table was changed
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean register(@NotNull UUID uuid, @NotNull String name) {
+        int id = this.ids_by_uuid.getInt(uuid);
+
+        // A known player: see if they were renamed.
+        if (id != UNKNOWN) {
+            String old_name = this.names.get(id);
+            if (old_name.equals(name)) return false;
+
+            // Only forget the old name if it still points to this player.
+            if (this.ids_by_name.getInt(old_name) == id)
+                this.ids_by_name.removeInt(old_name);
+
+            int holder_id = this.ids_by_name.getInt(name);
+            if (holder_id != UNKNOWN) this.retire(holder_id);
+
+            this.names.set(id, name);
+            this.ids_by_name.put(name, id);
+            this.encoded_nbt = null;
+            this.version++;
+            return true;
+        }
+
+        // An unknown UUID: claim the name's id if no other player owns it yet.
+        id = this.ids_by_name.getInt(name);
+        if (id != UNKNOWN && this.uuids.get(id) != null) {
+            this.retire(id);
+            id = UNKNOWN;
+        }
+
+        if (id == UNKNOWN)
+            id = this.createId(name);
+
+        this.uuids.set(id, uuid);
+        this.ids_by_uuid.put(uuid, id);
+        this.encoded_nbt = null;
+        this.version++;
+        return true;
+    }
+
+    /**
+     * Give the name of the given id to nobody, by renaming the id to a unique placeholder.
+     * The id keeps its scores and its UUID, so a retired player gets their real name back the next time they join.
+     * The placeholder is a name like any other, so commands and journal records can still reach the id.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private void retire(int id) {
+        String old_name = this.names.get(id);
+        if (this.ids_by_name.getInt(old_name) == id)
+            this.ids_by_name.removeInt(old_name);
+
+        String placeholder = old_name + "#" + id;
+        while (this.ids_by_name.containsKey(placeholder))
+            placeholder += "#";
+
+        this.names.set(id, placeholder);
+        this.ids_by_name.put(placeholder, id);
+        this.encoded_nbt = null;
+        this.version++;
+    }
+
+    /**
+     * Append the next dense id for the given name, even if the name is already taken.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private int createId(String name) {
+        this.encoded_nbt = null;
+        this.version++;
+        int id = this.names.size();
+        this.names.add(name);
+        this.uuids.add(null);
+        this.ids_by_name.put(name, id);
+        return id;
+    }
+
+    /**
+     * Forget every player.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void clear() {
+        this.ids_by_name.clear();
+        this.ids_by_uuid.clear();
+        this.names.clear();
+        this.uuids.clear();
+        this.encoded_nbt = null;
+        this.version++;
+    }
+
+    /**
+     * Revive the table from the given NBT list.
+     * Entries are stored in id order, so the ids stay the same between restarts.
+     *
+     * Files written before names could be retired may hold the same name more than once:
+     * the name then goes to the newest id that is linked to a UUID (or the newest id if none are),
+     * and the other ids are retired.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void readFromNbt(NbtList list) {
+        list.forEach(nbtElement -> {
+            if (!(nbtElement instanceof NbtCompound compound)) return;
+
+            String name = compound.getString("name");
+            UUID uuid = compound.containsUuid("uuid") ? compound.getUuid("uuid") : null;
+            int holder_id = this.ids_by_name.getInt(name);
+
+            // A name-only id never takes the name from a player.
+            boolean takes_name = holder_id == UNKNOWN || uuid != null || this.uuids.get(holder_id) == null;
+
+            int id = this.names.size();
+            this.names.add(name);
+            this.uuids.add(uuid);
+            if (uuid != null) this.ids_by_uuid.put(uuid, id);
+
+            if (takes_name) {
+                if (holder_id != UNKNOWN) this.retire(holder_id);
+                this.ids_by_name.put(name, id);
+            } else {
+                this.retire(id);
+            }
+        });
+    }
+
+    /**
+     * Write the table to an NBT list.
+     * The list is reused between saves as long as no player was added or renamed.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public NbtList toNbt() {
+        if (this.encoded_nbt != null) return this.encoded_nbt;
+
+        NbtList list = new NbtList();
+        for (int id = 0; id < this.names.size(); id++) {
+            NbtCompound compound = new NbtCompound();
+            compound.putString("name", this.names.get(id));
+            if (this.uuids.get(id) != null)
+                compound.putUuid("uuid", this.uuids.get(id));
+            list.add(compound);
+        }
+
+        this.encoded_nbt = list;
+        return list;
+    }
+}
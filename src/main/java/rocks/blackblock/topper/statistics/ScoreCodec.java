@@ -0,0 +1,114 @@
+package rocks.blackblock.topper.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Packs the scores of a single custom statistic into one byte array.
+ * Player ids refer to the augment's player table, which acts as the name dictionary.
+ *
+ * Layout (version 1):
+ *   version byte, varint entry count,
+ *   then per entry (sorted by player id): varint id delta, zigzag varint score
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public final class ScoreCodec {
+
+    public static final byte VERSION = 1;
+
+    private ScoreCodec() {}
+
+    /**
+     * Pack a player id & score into a single long, so entries can be sorted by id cheaply.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static long pack(int player_id, int score) {
+        return ((long) player_id << 32) | (score & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Encode the given packed entries. The array is sorted in place.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static byte[] encode(long[] entries) {
+        Arrays.sort(entries);
+
+        // An entry takes at most 5 bytes for the id and 5 for the score.
+        byte[] buffer = new byte[6 + entries.length * 10];
+        int position = 0;
+        buffer[position++] = VERSION;
+        position = writeVarInt(buffer, position, entries.length);
+
+        int previous_id = 0;
+        for (long entry : entries) {
+            int player_id = (int) (entry >>> 32);
+            int score = (int) entry;
+            position = writeVarInt(buffer, position, player_id - previous_id);
+            position = writeVarInt(buffer, position, (score << 1) ^ (score >> 31));
+            previous_id = player_id;
+        }
+
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Decode the given bytes, handing every entry to the consumer.
+     *
+     * @throws   IllegalArgumentException   If the data is of an unknown version or truncated
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static void decode(byte[] data, ScoreConsumer consumer) {
+        if (data.length == 0 || data[0] != VERSION)
+            throw new IllegalArgumentException("Unknown score data version");
+
+        int[] position = {1};
+        int count = readVarInt(data, position);
+        int player_id = 0;
+
+        for (int i = 0; i < count; i++) {
+            player_id += readVarInt(data, position);
+            int zigzag = readVarInt(data, position);
+            consumer.accept(player_id, (zigzag >>> 1) ^ -(zigzag & 1));
+        }
+    }
+
+    private static int writeVarInt(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarInt(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position[0] >= data.length)
+                throw new IllegalArgumentException("Truncated score data");
+
+            byte current = data[position[0]++];
+            value |= (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed score data");
+    }
+
+    /**
+     * Receives decoded entries.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    @FunctionalInterface
+    public interface ScoreConsumer {
+        void accept(int player_id, int score);
+    }
+}
@@ -0,0 +1,254 @@
+package rocks.blackblock.topper.statistics;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+
+import java.util.Arrays;
+
+/**
+ * A ring of per-window score deltas for a single custom statistic.
+ * Every bucket holds the deltas players gained during one window (a day, a week, ...),
+ * so window totals and leaderboards only have to look at the players that were active in it.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class ScoreHistory {
+
+    private final HistoryWindow window;
+    private final long[] window_ids;
+    private final Int2IntOpenHashMap[] buckets;
+
+    // Every bucket's leaderboard order, sorted once per version of the bucket
+    private final int[] bucket_versions;
+    private final int[] sorted_versions;
+    private final int[][] sorted_ids;
+    private final int[][] sorted_scores;
+
+    // The window id is only recalculated when the day changes
+    private long cached_epoch_day = Long.MIN_VALUE;
+    private long cached_window_id = Long.MIN_VALUE;
+
+    public ScoreHistory(HistoryWindow window) {
+        this.window = window;
+        this.window_ids = new long[window.getBucketCount()];
+        this.buckets = new Int2IntOpenHashMap[window.getBucketCount()];
+        this.bucket_versions = new int[window.getBucketCount()];
+        this.sorted_versions = new int[window.getBucketCount()];
+        this.sorted_ids = new int[window.getBucketCount()][];
+        this.sorted_scores = new int[window.getBucketCount()][];
+
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.window_ids[i] = Long.MIN_VALUE;
+            this.buckets[i] = new Int2IntOpenHashMap();
+            this.sorted_versions[i] = -1;
+        }
+    }
+
+    public HistoryWindow getWindow() { return this.window; }
+
+    /**
+     * Record a score delta in the window of the given day, in O(1).
+     * Deltas of a day whose window already fell out of the ring are ignored.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void record(int player_id, int delta, long epoch_day) {
+        long window_id = this.getWindowId(epoch_day);
+        int index = (int) Math.floorMod(window_id, (long) this.buckets.length);
+
+        // Recycle the bucket of a window that fell out of the ring.
+        if (this.window_ids[index] != window_id) {
+            if (this.window_ids[index] > window_id) return;
+            this.window_ids[index] = window_id;
+            this.buckets[index].clear();
+            this.buckets[index].trim();
+        }
+
+        this.buckets[index].addTo(player_id, delta);
+        this.bucket_versions[index]++;
+    }
+
+    /**
+     * Get the score the given player gained in a window.
+     *
+     * @param    windows_ago   0 for the current window, 1 for the previous one, ...
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getScore(int player_id, int windows_ago) {
+        Int2IntOpenHashMap bucket = this.getBucket(windows_ago);
+        if (bucket == null || player_id < 0) return 0;
+        return bucket.get(player_id);
+    }
+
+    /**
+     * Get the amount of players that have a score in a window.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getScoreCount(int windows_ago) {
+        Int2IntOpenHashMap bucket = this.getBucket(windows_ago);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    /**
+     * Get a page of the leaderboard of a window.
+     * Only the players that were active in that window are sorted,
+     * and only once per change of the window: other pages reuse that order.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public LeaderboardEntry[] getLeaderboardPage(int windows_ago, int page, int page_size, PlayerSymbolTable players) {
+        int index = this.getBucketIndex(windows_ago);
+        if (index < 0 || this.buckets[index].isEmpty()) return new LeaderboardEntry[0];
+
+        this.sortBucket(index);
+        int[] ids = this.sorted_ids[index];
+        int[] scores = this.sorted_scores[index];
+
+        int start = (page - 1) * page_size;
+        int end = Math.min(start + page_size, ids.length);
+        if (start < 0 || start >= end) return new LeaderboardEntry[0];
+
+        // Equal scores share a rank, so walk back to find the rank of the first entry.
+        int rank = start + 1;
+        while (rank > 1 && scores[rank - 2] == scores[start]) rank--;
+
+        LeaderboardEntry[] entries = new LeaderboardEntry[end - start];
+        for (int position = start; position < end; position++) {
+            if (position > start && scores[position] != scores[position - 1])
+                rank = position + 1;
+            entries[position - start] = new LeaderboardEntry(rank, ids[position], players.getName(ids[position]), scores[position]);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Sort the players of a bucket by their score, unless that was already done for its current version.
+     * Every entry is packed into a long (inverted score, id), so a primitive sort orders them
+     * from the highest score to the lowest, ties by player id.
+     */
+    private void sortBucket(int index) {
+        if (this.sorted_versions[index] == this.bucket_versions[index]) return;
+
+        Int2IntOpenHashMap bucket = this.buckets[index];
+        long[] keys = new long[bucket.size()];
+        int i = 0;
+        for (Int2IntMap.Entry entry : bucket.int2IntEntrySet())
+            keys[i++] = ((long) ~entry.getIntValue() << 32) | entry.getIntKey();
+        Arrays.sort(keys);
+
+        int[] ids = new int[keys.length];
+        int[] scores = new int[keys.length];
+        for (i = 0; i < keys.length; i++) {
+            ids[i] = (int) keys[i];
+            scores[i] = ~(int) (keys[i] >> 32);
+        }
+
+        this.sorted_ids[index] = ids;
+        this.sorted_scores[index] = scores;
+        this.sorted_versions[index] = this.bucket_versions[index];
+    }
+
+    /**
+     * Get the bucket of a window, or null if it is no longer (or not yet) in the ring.
+     */
+    private Int2IntOpenHashMap getBucket(int windows_ago) {
+        int index = this.getBucketIndex(windows_ago);
+        return index < 0 ? null : this.buckets[index];
+    }
+
+    /**
+     * Get the index of a window's bucket, or -1 if it is no longer (or not yet) in the ring.
+     */
+    private int getBucketIndex(int windows_ago) {
+        if (windows_ago < 0 || windows_ago >= this.buckets.length) return -1;
+
+        long window_id = this.getCurrentWindowId() - windows_ago;
+        int index = (int) Math.floorMod(window_id, (long) this.buckets.length);
+        if (this.window_ids[index] != window_id) return -1;
+        return index;
+    }
+
+    private long getCurrentWindowId() {
+        return this.getWindowId(HistoryWindow.getCurrentEpochDay());
+    }
+
+    private long getWindowId(long epoch_day) {
+        if (epoch_day != this.cached_epoch_day) {
+            this.cached_epoch_day = epoch_day;
+            this.cached_window_id = this.window.getWindowId(epoch_day);
+        }
+        return this.cached_window_id;
+    }
+
+    /**
+     * Revive the history from NBT.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void readFromNbt(NbtCompound compound) {
+        NbtList list = compound.getList("buckets", NbtElement.COMPOUND_TYPE);
+
+        list.forEach(nbtElement -> {
+            if (!(nbtElement instanceof NbtCompound bucket_compound)) return;
+
+            long window_id = bucket_compound.getLong("window");
+            int index = (int) Math.floorMod(window_id, (long) this.buckets.length);
+            int[] ids = bucket_compound.getIntArray("ids");
+            int[] deltas = bucket_compound.getIntArray("deltas");
+
+            this.window_ids[index] = window_id;
+            Int2IntOpenHashMap bucket = this.buckets[index];
+            bucket.clear();
+            for (int i = 0; i < Math.min(ids.length, deltas.length); i++)
+                bucket.put(ids[i], deltas[i]);
+            this.bucket_versions[index]++;
+        });
+    }
+
+    /**
+     * Write the history to NBT.
+     * Every bucket is stored as two packed int arrays.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public NbtCompound toNbt() {
+        NbtList list = new NbtList();
+
+        for (int index = 0; index < this.buckets.length; index++) {
+            Int2IntOpenHashMap bucket = this.buckets[index];
+            if (this.window_ids[index] == Long.MIN_VALUE || bucket.isEmpty()) continue;
+
+            int[] ids = new int[bucket.size()];
+            int[] deltas = new int[bucket.size()];
+            int i = 0;
+            for (Int2IntMap.Entry entry : bucket.int2IntEntrySet()) {
+                ids[i] = entry.getIntKey();
+                deltas[i] = entry.getIntValue();
+                i++;
+            }
+
+            NbtCompound bucket_compound = new NbtCompound();
+            bucket_compound.putLong("window", this.window_ids[index]);
+            bucket_compound.putIntArray("ids", ids);
+            bucket_compound.putIntArray("deltas", deltas);
+            list.add(bucket_compound);
+        }
+
+        NbtCompound compound = new NbtCompound();
+        compound.put("buckets", list);
+        return compound;
+    }
+}
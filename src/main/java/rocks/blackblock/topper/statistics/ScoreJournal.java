@@ -0,0 +1,517 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtSizeTracker;
+import rocks.blackblock.topper.BlackBlockTopper;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of every custom statistic mutation.
+ * Records are appended to an in-memory buffer on the server thread and written to disk
+ * by a background thread, which syncs all the records it finds in one go (group commit).
+ *
+ * The log is split into generations: every save of the augment starts a new one, and a
+ * generation is deleted once a later save is known to contain it. On startup all generations
+ * the saved snapshot does not contain yet are replayed.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class ScoreJournal {
+
+    private static final int MAGIC = 0x4242534A;
+    private static final byte VERSION = 1;
+    private static final long FLUSH_INTERVAL_MS = 50;
+    private static final long COMPACTION_SIZE = 8L * 1024 * 1024;
+
+    // Record types
+    private static final byte CREATE = 1;
+    private static final byte DELETE = 2;
+    private static final byte ADD_SCORE = 3; // Only replayed, newer deltas are logged with their day
+    private static final byte SET_SCORE = 4;
+    private static final byte METADATA = 5;
+    private static final byte PLAYER = 6;
+    private static final byte ADD_SCORE_ON_DAY = 7;
+
+    private final Path directory;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong bytes_since_snapshot = new AtomicLong();
+
+    // Guarded by the lock: the buffers waiting to be written
+    private final Object lock = new Object();
+    private final ArrayDeque<Batch> sealed_batches = new ArrayDeque<>();
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+    private long generation;
+    private long obsolete_before;
+    private long saved_generation;
+
+    // Only used on the server thread
+    private final ByteArrayOutputStream record_bytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream record = new DataOutputStream(this.record_bytes);
+    private long snapshot_generation;
+    private boolean replaying = false;
+
+    // Only used on the flush thread
+    private FileChannel channel = null;
+    private long channel_generation = -1;
+
+    private ScoreJournal(Path directory, long snapshot_generation) {
+        this.directory = directory;
+        this.snapshot_generation = snapshot_generation;
+        this.saved_generation = snapshot_generation;
+
+        // Nothing is deleted until a new snapshot is saved: should the loaded one turn out to be corrupt later on,
+        // the fallback file still needs the generations before it.
+        this.obsolete_before = Long.MIN_VALUE;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Topper Score Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the journal in the given directory.
+     * All the generations the snapshot does not contain yet are replayed into the augment first.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static ScoreJournal open(Path directory, long snapshot_generation, CustomStatisticsAugment augment) throws IOException {
+        Files.createDirectories(directory);
+        ScoreJournal journal = new ScoreJournal(directory, snapshot_generation);
+
+        // Replay the generations in order.
+        long last_generation = snapshot_generation - 1;
+        for (long segment_generation : journal.listGenerations()) {
+            last_generation = Math.max(last_generation, segment_generation);
+            if (segment_generation >= snapshot_generation)
+                journal.replay(segment_generation, augment);
+        }
+
+        // Never append to a replayed generation: its tail could be torn.
+        journal.generation = last_generation + 1;
+        journal.executor.scheduleWithFixedDelay(journal::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    /**
+     * Log the creation of a custom statistic.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void logCreate(String key, String display_name, String owner_name) {
+        if (this.replaying) return;
+        try {
+            this.record.writeUTF(key);
+            this.record.writeUTF(display_name);
+            this.record.writeUTF(owner_name);
+            this.append(CREATE);
+        } catch (IOException e) {
+            this.discard(e);
+        }
+    }
+
+    /**
+     * Log the deletion of a custom statistic.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void logDelete(String key) {
+        if (this.replaying) return;
+        try {
+            this.record.writeUTF(key);
+            this.append(DELETE);
+        } catch (IOException e) {
+            this.discard(e);
+        }
+    }
+
+    /**
+     * Log a score delta, with the day it was added on:
+     * a replay has to record it in the history windows of that day, not of the replay's.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void logAddScore(String key, String player_name, int delta, long epoch_day) {
+        if (this.replaying || player_name == null) return;
+        try {
+            this.record.writeUTF(key);
+            this.record.writeUTF(player_name);
+            this.record.writeInt(delta);
+            this.record.writeLong(epoch_day);
+            this.append(ADD_SCORE_ON_DAY);
+        } catch (IOException e) {
+            this.discard(e);
+        }
+    }
+
+    /**
+     * Log a score being set.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void logSetScore(String key, String player_name, int value) {
+        this.logScore(SET_SCORE, key, player_name, value);
+    }
+
+    private void logScore(byte type, String key, String player_name, int value) {
+        if (this.replaying || player_name == null) return;
+        try {
+            this.record.writeUTF(key);
+            this.record.writeUTF(player_name);
+            this.record.writeInt(value);
+            this.append(type);
+        } catch (IOException e) {
+            this.discard(e);
+        }
+    }
+
+    /**
+     * Log a change to a statistic's metadata.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void logMetadata(String key, NbtCompound metadata) {
+        if (this.replaying) return;
+        try {
+            this.record.writeUTF(key);
+            NbtIo.writeCompound(metadata, this.record);
+            this.append(METADATA);
+        } catch (IOException e) {
+            this.discard(e);
+        }
+    }
+
+    /**
+     * Log a player being linked to (or renamed in) the player table.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void logPlayer(UUID uuid, String name) {
+        if (this.replaying) return;
+        try {
+            this.record.writeLong(uuid.getMostSignificantBits());
+            this.record.writeLong(uuid.getLeastSignificantBits());
+            this.record.writeUTF(name);
+            this.append(PLAYER);
+        } catch (IOException e) {
+            this.discard(e);
+        }
+    }
+
+    /**
+     * Start a new generation, because a snapshot of the current state is being saved.
+     *
+     * @return   The generation the new snapshot has to be stored with
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public long rotate() {
+        synchronized (this.lock) {
+            if (this.buffer.size() > 0) {
+                this.sealed_batches.add(new Batch(this.generation, this.buffer));
+                this.buffer = new ByteArrayOutputStream(8192);
+            }
+
+            this.generation++;
+            this.snapshot_generation = this.generation;
+        }
+
+        this.bytes_since_snapshot.set(0);
+        return this.snapshot_generation;
+    }
+
+    /**
+     * Called once the snapshot of the given generation is safely on disk.
+     * The generations before the previous saved snapshot are then deleted in the background:
+     * one extra snapshot is kept replayable, in case the newest file turns out to be corrupt.
+     * Can be called from any thread.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void onSnapshotSaved(long saved_generation) {
+        synchronized (this.lock) {
+            if (saved_generation <= this.saved_generation) return;
+            this.obsolete_before = this.saved_generation;
+            this.saved_generation = saved_generation;
+        }
+    }
+
+    /**
+     * Has the journal grown enough to fold it into a new snapshot?
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean needsCompaction() {
+        return this.bytes_since_snapshot.get() >= COMPACTION_SIZE;
+    }
+
+    /**
+     * Write everything that is still buffered and close the journal.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.flush();
+
+        try {
+            if (this.channel != null) this.channel.close();
+        } catch (IOException e) {
+            BlackBlockTopper.LOGGER.error("Failed to close the score journal", e);
+        }
+        this.channel = null;
+    }
+
+    /**
+     * Frame the record that was written to the record stream and append it to the buffer.
+     * A record is stored as: length, type + payload, CRC32C of type + payload.
+     */
+    private void append(byte type) throws IOException {
+        byte[] bytes = this.record_bytes.toByteArray();
+        this.record_bytes.reset();
+
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(bytes);
+
+        ByteBuffer framed = ByteBuffer.allocate(4 + 1 + bytes.length + 4);
+        framed.putInt(1 + bytes.length);
+        framed.put(type);
+        framed.put(bytes);
+        framed.putInt((int) crc.getValue());
+
+        synchronized (this.lock) {
+            this.buffer.write(framed.array(), 0, framed.capacity());
+        }
+
+        this.bytes_since_snapshot.addAndGet(framed.capacity());
+    }
+
+    /**
+     * Forget a half-written record.
+     */
+    private void discard(IOException e) {
+        this.record_bytes.reset();
+        BlackBlockTopper.LOGGER.error("Failed to log a custom statistic change", e);
+    }
+
+    /**
+     * Write all buffered records to disk and sync them in one go.
+     * Runs on the journal thread.
+     */
+    private synchronized void flush() {
+        List<Batch> batches = new ArrayList<>();
+        long delete_before;
+
+        synchronized (this.lock) {
+            batches.addAll(this.sealed_batches);
+            this.sealed_batches.clear();
+
+            if (this.buffer.size() > 0) {
+                batches.add(new Batch(this.generation, this.buffer));
+                this.buffer = new ByteArrayOutputStream(8192);
+            }
+
+            delete_before = this.obsolete_before;
+        }
+
+        try {
+            for (Batch batch : batches) {
+                this.openChannel(batch.generation());
+                this.channel.write(ByteBuffer.wrap(batch.buffer().toByteArray()));
+            }
+
+            if (this.channel != null && !batches.isEmpty())
+                this.channel.force(false);
+
+            // Remove the generations the snapshots on disk already contain.
+            for (long segment_generation : this.listGenerations()) {
+                if (segment_generation < delete_before && segment_generation != this.channel_generation)
+                    Files.deleteIfExists(this.getSegmentPath(segment_generation));
+            }
+        } catch (IOException | RuntimeException e) {
+            // This runs as a scheduled task: letting an exception escape would silently cancel every later flush.
+            BlackBlockTopper.LOGGER.error("Failed to write the score journal", e);
+        }
+    }
+
+    /**
+     * Make sure the channel of the given generation is open.
+     */
+    private void openChannel(long segment_generation) throws IOException {
+        if (this.channel != null && this.channel_generation == segment_generation) return;
+
+        // Sync & close the previous generation first.
+        if (this.channel != null) {
+            this.channel.force(false);
+            this.channel.close();
+        }
+
+        Path path = this.getSegmentPath(segment_generation);
+        boolean is_new = !Files.exists(path);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.channel_generation = segment_generation;
+
+        if (is_new) {
+            ByteBuffer header = ByteBuffer.allocate(5);
+            header.putInt(MAGIC);
+            header.put(VERSION);
+            header.flip();
+            this.channel.write(header);
+        }
+    }
+
+    /**
+     * Replay a single generation.
+     * Replay stops at the first torn, corrupt or unappliable record, since nothing after it can be trusted.
+     */
+    private void replay(long segment_generation, CustomStatisticsAugment augment) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(this.getSegmentPath(segment_generation)));
+        if (data.remaining() < 5 || data.getInt() != MAGIC || data.get() != VERSION) {
+            BlackBlockTopper.LOGGER.warn("Skipping unreadable score journal generation " + segment_generation);
+            return;
+        }
+
+        int replayed = 0;
+        this.replaying = true;
+
+        try {
+            while (data.remaining() >= 4) {
+                int length = data.getInt();
+                if (length < 1 || length > data.remaining() - 4) {
+                    BlackBlockTopper.LOGGER.warn("Score journal generation " + segment_generation + " ends with a torn record");
+                    break;
+                }
+
+                byte[] body = new byte[length];
+                data.get(body);
+                int expected_crc = data.getInt();
+
+                CRC32C crc = new CRC32C();
+                crc.update(body);
+                if ((int) crc.getValue() != expected_crc) {
+                    BlackBlockTopper.LOGGER.warn("Score journal generation " + segment_generation + " has a corrupt record");
+                    break;
+                }
+
+                try {
+                    this.apply(body, augment);
+                } catch (IOException | RuntimeException e) {
+                    BlackBlockTopper.LOGGER.error("Score journal generation " + segment_generation + " has a record that can not be applied, stopping its replay", e);
+                    break;
+                }
+
+                replayed++;
+            }
+        } finally {
+            this.replaying = false;
+        }
+
+        if (replayed > 0) {
+            BlackBlockTopper.LOGGER.info("Replayed " + replayed + " custom statistic changes from the score journal");
+            augment.markDirty();
+        }
+    }
+
+    /**
+     * Apply a single record to the augment.
+     */
+    private void apply(byte[] body, CustomStatisticsAugment augment) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(body, 1, body.length - 1));
+
+        switch (body[0]) {
+            case CREATE -> augment.createCustomStatistic(input.readUTF(), input.readUTF(), input.readUTF());
+            case DELETE -> {
+                CustomStatistic statistic = augment.getCustomStatistic(input.readUTF());
+                if (statistic != null) augment.deleteCustomStatistic(statistic);
+            }
+            case ADD_SCORE, SET_SCORE -> {
+                CustomStatistic statistic = augment.getCustomStatistic(input.readUTF());
+                String player_name = input.readUTF();
+                int value = input.readInt();
+                if (statistic == null) return;
+                if (body[0] == ADD_SCORE) statistic.addScore(player_name, value);
+                else statistic.setScore(player_name, value);
+            }
+            case ADD_SCORE_ON_DAY -> {
+                CustomStatistic statistic = augment.getCustomStatistic(input.readUTF());
+                String player_name = input.readUTF();
+                int value = input.readInt();
+                long epoch_day = input.readLong();
+                if (statistic != null) statistic.addScore(player_name, value, epoch_day);
+            }
+            case METADATA -> {
+                CustomStatistic statistic = augment.getCustomStatistic(input.readUTF());
+                NbtCompound metadata = NbtIo.readCompound(input, NbtSizeTracker.ofUnlimitedBytes());
+                if (statistic != null) statistic.applyMetadataNbt(metadata);
+            }
+            case PLAYER -> {
+                UUID uuid = new UUID(input.readLong(), input.readLong());
+                augment.getPlayers().register(uuid, input.readUTF());
+            }
+            default -> BlackBlockTopper.LOGGER.warn("Unknown score journal record type " + body[0]);
+        }
+    }
+
+    private Path getSegmentPath(long segment_generation) {
+        return this.directory.resolve("journal-" + segment_generation + ".log");
+    }
+
+    /**
+     * Get the generations that have a segment on disk, in order.
+     */
+    private List<Long> listGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            paths.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (!name.startsWith("journal-") || !name.endsWith(".log")) return;
+                try {
+                    generations.add(Long.parseLong(name.substring(8, name.length() - 4)));
+                } catch (NumberFormatException ignored) {}
+            });
+        }
+
+        Collections.sort(generations);
+        return generations;
+    }
+
+    /**
+     * Records waiting to be written to a generation.
+     */
+    private record Batch(long generation, ByteArrayOutputStream buffer) {}
+}
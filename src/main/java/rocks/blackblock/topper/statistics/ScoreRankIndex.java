@@ -0,0 +1,378 @@
+package rocks.blackblock.topper.statistics;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * An order-statistic index over the scores of a single custom statistic.
+ * Entries are ordered from the highest score to the lowest, ties are ordered by player id.
+ *
+ * It is a treap stored in a single int array, without objects per entry. Every indexed player
+ * gets a local slot in that array, so its size follows the amount of entries of this statistic
+ * instead of the highest player id. Slots of removed players are reused through a free list.
+ * The fields of a node are stored next to each other, so walking the tree touches one cache line
+ * per node. Updates, rank and position lookups all run in O(log n).
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class ScoreRankIndex {
+
+    private static final int NIL = -1;
+
+    // Layout of a node in the nodes array
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int SIZE = 2;
+    private static final int SCORE = 3;
+    private static final int PLAYER = 4;
+    private static final int STRIDE = 5;
+
+    private int root = NIL;
+    private int[] nodes = new int[0];
+
+    // The local slot of each indexed player id
+    private final Int2IntOpenHashMap slots = new Int2IntOpenHashMap();
+
+    // The next never-used slot, and the head of the list of freed slots
+    // (a freed slot links to the next one through its LEFT field)
+    private int slot_count = 0;
+    private int free_slot = NIL;
+
+    // Results of the last split
+    private int split_left = NIL;
+    private int split_right = NIL;
+
+    public ScoreRankIndex() {
+        this.slots.defaultReturnValue(NIL);
+    }
+
+    /**
+     * Get the amount of entries in the index.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int size() { return this.sizeOf(this.root); }
+
+    /**
+     * Is the given player id in the index?
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean contains(int player_id) {
+        return this.slots.containsKey(player_id);
+    }
+
+    /**
+     * Get the score the given player id is indexed with.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getScore(int player_id) {
+        int node = this.slots.get(player_id);
+        if (node == NIL) return 0;
+        return this.scoreOf(node);
+    }
+
+    /**
+     * Insert or move the given player id.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void put(int player_id, int score) {
+        int node = this.slots.get(player_id);
+
+        if (node != NIL) {
+            if (this.scoreOf(node) == score) return;
+            this.root = this.remove(this.root, node);
+        } else {
+            node = this.allocateSlot();
+            this.slots.put(player_id, node);
+        }
+
+        int offset = node * STRIDE;
+        this.nodes[offset + LEFT] = NIL;
+        this.nodes[offset + RIGHT] = NIL;
+        this.nodes[offset + SIZE] = 1;
+        this.nodes[offset + SCORE] = score;
+        this.nodes[offset + PLAYER] = player_id;
+        this.root = this.insert(this.root, node);
+    }
+
+    /**
+     * Remove the given player id.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void remove(int player_id) {
+        int node = this.slots.remove(player_id);
+        if (node == NIL) return;
+        this.root = this.remove(this.root, node);
+
+        // Put the slot on the free list
+        this.nodes[node * STRIDE + SIZE] = 0;
+        this.nodes[node * STRIDE + LEFT] = this.free_slot;
+        this.free_slot = node;
+    }
+
+    /**
+     * Remove all entries.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void clear() {
+        this.root = NIL;
+        this.nodes = new int[0];
+        this.slots.clear();
+        this.slot_count = 0;
+        this.free_slot = NIL;
+    }
+
+    /**
+     * Count the entries with a score strictly higher than the given score.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int countGreater(int score) {
+        int count = 0;
+        int node = this.root;
+
+        while (node != NIL) {
+            if (this.scoreOf(node) > score) {
+                count += this.sizeOf(this.leftOf(node)) + 1;
+                node = this.rightOf(node);
+            } else {
+                node = this.leftOf(node);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the 1-based rank of the given player id.
+     * Players with the same score share the same rank. Returns 0 if the player is not indexed.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getRank(int player_id) {
+        int node = this.slots.get(player_id);
+        if (node == NIL) return 0;
+        return this.countGreater(this.scoreOf(node)) + 1;
+    }
+
+    /**
+     * Get the 0-based position of the given player id in the ordering.
+     * Returns -1 if the player is not indexed.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int getPosition(int player_id) {
+        int target = this.slots.get(player_id);
+        if (target == NIL) return -1;
+
+        int position = 0;
+        int node = this.root;
+
+        while (node != target) {
+            if (this.isBefore(node, target)) {
+                position += this.sizeOf(this.leftOf(node)) + 1;
+                node = this.rightOf(node);
+            } else {
+                node = this.leftOf(node);
+            }
+        }
+
+        return position + this.sizeOf(this.leftOf(node));
+    }
+
+    /**
+     * Get the player id at the given 0-based position, or -1 if out of bounds.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public int select(int position) {
+        if (position < 0 || position >= this.size()) return NIL;
+
+        int node = this.root;
+        while (true) {
+            int left_size = this.sizeOf(this.leftOf(node));
+            if (position < left_size) {
+                node = this.leftOf(node);
+            } else if (position == left_size) {
+                return this.playerOf(node);
+            } else {
+                position -= left_size + 1;
+                node = this.rightOf(node);
+            }
+        }
+    }
+
+    /**
+     * Copy every player id & score in leaderboard order into the given arrays, in O(n).
+     * Both arrays have to be at least size() long.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void copyInOrder(int[] ids, int[] scores) {
+        int[] stack = new int[32];
+        int depth = 0;
+        int position = 0;
+        int node = this.root;
+
+        while (node != NIL || depth > 0) {
+            // Walk down to the leftmost node first.
+            while (node != NIL) {
+                if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                stack[depth++] = node;
+                node = this.leftOf(node);
+            }
+
+            node = stack[--depth];
+            ids[position] = this.playerOf(node);
+            scores[position] = this.scoreOf(node);
+            position++;
+            node = this.rightOf(node);
+        }
+    }
+
+    private int leftOf(int node) { return this.nodes[node * STRIDE + LEFT]; }
+    private int rightOf(int node) { return this.nodes[node * STRIDE + RIGHT]; }
+    private int scoreOf(int node) { return this.nodes[node * STRIDE + SCORE]; }
+    private int playerOf(int node) { return this.nodes[node * STRIDE + PLAYER]; }
+    private int sizeOf(int node) { return node == NIL ? 0 : this.nodes[node * STRIDE + SIZE]; }
+    private void setLeft(int node, int child) { this.nodes[node * STRIDE + LEFT] = child; }
+    private void setRight(int node, int child) { this.nodes[node * STRIDE + RIGHT] = child; }
+
+    private void update(int node) {
+        this.nodes[node * STRIDE + SIZE] = this.sizeOf(this.leftOf(node)) + this.sizeOf(this.rightOf(node)) + 1;
+    }
+
+    /**
+     * Does node a come before node b? (Higher scores first, then lower ids)
+     */
+    private boolean isBefore(int a, int b) {
+        int score_a = this.scoreOf(a);
+        int score_b = this.scoreOf(b);
+        if (score_a != score_b) return score_a > score_b;
+        return this.playerOf(a) < this.playerOf(b);
+    }
+
+    /**
+     * Get the heap priority of a node.
+     * This is derived from the slot, so it does not need to be stored.
+     */
+    private static int priority(int node) {
+        int h = node * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private int insert(int node, int new_node) {
+        if (node == NIL) return new_node;
+
+        if (priority(new_node) > priority(node)) {
+            this.split(node, new_node);
+            this.setLeft(new_node, this.split_left);
+            this.setRight(new_node, this.split_right);
+            this.update(new_node);
+            return new_node;
+        }
+
+        if (this.isBefore(new_node, node))
+            this.setLeft(node, this.insert(this.leftOf(node), new_node));
+        else
+            this.setRight(node, this.insert(this.rightOf(node), new_node));
+
+        this.update(node);
+        return node;
+    }
+
+    private int remove(int node, int old_node) {
+        if (node == old_node)
+            return this.merge(this.leftOf(node), this.rightOf(node));
+
+        if (this.isBefore(old_node, node))
+            this.setLeft(node, this.remove(this.leftOf(node), old_node));
+        else
+            this.setRight(node, this.remove(this.rightOf(node), old_node));
+
+        this.update(node);
+        return node;
+    }
+
+    /**
+     * Split the tree into the nodes before the pivot and the nodes after it.
+     * The result is put in split_left and split_right.
+     */
+    private void split(int node, int pivot) {
+        if (node == NIL) {
+            this.split_left = NIL;
+            this.split_right = NIL;
+            return;
+        }
+
+        if (this.isBefore(node, pivot)) {
+            this.split(this.rightOf(node), pivot);
+            this.setRight(node, this.split_left);
+            this.update(node);
+            this.split_left = node;
+        } else {
+            this.split(this.leftOf(node), pivot);
+            this.setLeft(node, this.split_right);
+            this.update(node);
+            this.split_right = node;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+
+        if (priority(a) > priority(b)) {
+            this.setRight(a, this.merge(this.rightOf(a), b));
+            this.update(a);
+            return a;
+        }
+
+        this.setLeft(b, this.merge(a, this.leftOf(b)));
+        this.update(b);
+        return b;
+    }
+
+    /**
+     * Get a free slot, reusing removed ones first
+     */
+    private int allocateSlot() {
+        if (this.free_slot != NIL) {
+            int slot = this.free_slot;
+            this.free_slot = this.leftOf(slot);
+            return slot;
+        }
+
+        this.ensureCapacity(this.slot_count + 1);
+        return this.slot_count++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int current = this.nodes.length / STRIDE;
+        if (capacity <= current) return;
+
+        int new_capacity = Math.max(capacity, Math.max(16, current + (current >> 1)));
+        this.nodes = Arrays.copyOf(this.nodes, new_capacity * STRIDE);
+    }
+}
@@ -0,0 +1,74 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.util.Identifier;
+import rocks.blackblock.core.statistics.StatFormat;
+
+import java.util.List;
+
+/**
+ * An immutable copy of a single custom statistic, taken at a certain version.
+ * It can be read from any thread.
+ *
+ * The scores are only present in views made by {@link CustomStatistic#getScoredView()},
+ * and are stored in leaderboard order.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public record StatisticView(
+        Identifier key,
+        String display_name,
+        String owner,
+        List<String> maintainers,
+        StatFormat format,
+        String display_item_name,
+        int[] ranked_ids,
+        int[] ranked_scores
+) {
+
+    /**
+     * Does this view contain the stat's scores?
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public boolean hasScores() { return this.ranked_ids != null; }
+
+    public int getScoreCount() { return this.ranked_ids == null ? 0 : this.ranked_ids.length; }
+
+    public int getLeaderboardPageCount(int page_size) {
+        return (int) Math.ceil(this.getScoreCount() / (double) page_size);
+    }
+
+    /**
+     * Get a single page of the leaderboard, highest scores first.
+     * Players with the same score share the same rank.
+     *
+     * @param    page        The 1-based page number
+     * @param    page_size   The amount of entries per page
+     * @param    names       The player names, indexed by id
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public LeaderboardEntry[] getLeaderboardPage(int page, int page_size, String[] names) {
+        int start = (page - 1) * page_size;
+        int end = Math.min(start + page_size, this.getScoreCount());
+        if (start < 0 || start >= end) return new LeaderboardEntry[0];
+
+        // Walk back to find the rank of the first entry.
+        int rank = start + 1;
+        while (rank > 1 && this.ranked_scores[rank - 2] == this.ranked_scores[start]) rank--;
+
+        LeaderboardEntry[] entries = new LeaderboardEntry[end - start];
+        for (int position = start; position < end; position++) {
+            int id = this.ranked_ids[position];
+            int score = this.ranked_scores[position];
+            if (position > start && score != this.ranked_scores[position - 1])
+                rank = position + 1;
+            entries[position - start] = new LeaderboardEntry(rank, id, id < names.length ? names[id] : null, score);
+        }
+
+        return entries;
+    }
+}
@@ -1,27 +1,31 @@
 package rocks.blackblock.topper.statistics;
 
+import com.mojang.authlib.properties.PropertyMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
 import net.minecraft.component.DataComponentTypes;
-import net.minecraft.component.type.NbtComponent;
-import net.minecraft.item.BlockItem;
+import net.minecraft.component.type.LoreComponent;
+import net.minecraft.component.type.ProfileComponent;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NbtCompound;
+import net.minecraft.item.Items;
+import net.minecraft.screen.ScreenHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.stat.StatFormatter;
 import net.minecraft.stat.Stats;
-import net.minecraft.text.MutableText;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import rocks.blackblock.core.BlackBlockCore;
 import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
+import rocks.blackblock.screenbuilder.TexturedScreenHandler;
 import rocks.blackblock.screenbuilder.interfaces.SlotEventListener;
 import rocks.blackblock.screenbuilder.slots.ButtonWidgetSlot;
 import rocks.blackblock.topper.BlackBlockTopper;
 import rocks.blackblock.topper.screen.ItemBrowsingScreen;
 import rocks.blackblock.topper.screen.SortCriteria;
 import rocks.blackblock.topper.screen.SortOrder;
+import rocks.blackblock.topper.server.ChatOutput;
 
 import java.util.*;
 
@@ -38,116 +42,228 @@ public class StatisticsScreen extends ItemBrowsingScreen {
     private SortCriteria sort_criteria = SortCriteria.DEFAULT;
     private SortOrder sort_order = SortOrder.DESCENDING;
     private boolean hide_empty_stats = false;
+    private CustomStatistic leaderboard_statistic = null;
+
+    // The open statistics screen of each player, which are kept up-to-date while they are open
+    private static final HashMap<UUID, StatisticsScreen> LIVE_SCREENS = new HashMap<>();
+
+    // The minimum amount of ticks between 2 updates of an open screen (5 ticks = 4 updates per second)
+    public static int LIVE_UPDATE_INTERVAL = 5;
+    private static int TICKS_SINCE_LIVE_UPDATE = 0;
+
+    // The screen handler showing this screen, and the stat versions its slots were rendered with
+    private ScreenHandler handler = null;
+    private int rendered_stat_version = -1;
+    private long rendered_custom_version = -1;
 
     public StatisticsScreen(ServerPlayerEntity player) {
         super();
         this.player = player;
     }
 
+    /**
+     * Open this screen for its player, and keep it up-to-date while it is open
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void open() {
+        this.player.openHandledScreen(this);
+        this.trackHandler();
+    }
+
+    /**
+     * Remember the screen handler that is showing this screen now,
+     * which changes every time the screen is opened or replaced.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private void trackHandler() {
+        ScreenHandler current = this.player.currentScreenHandler;
+
+        if (current == null || current == this.player.playerScreenHandler) {
+            this.handler = null;
+            LIVE_SCREENS.remove(this.player.getUuid(), this);
+            return;
+        }
+
+        this.handler = current;
+        LIVE_SCREENS.put(this.player.getUuid(), this);
+    }
+
+    @Override
+    protected void onScreenReplaced() { this.trackHandler(); }
+
+    /**
+     * Searching is done in the ITEMS tab, so switch to it when a query is set
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    @Override
+    public void setSearchQuery(String query) {
+        super.setSearchQuery(query);
+
+        if (this.search_query != null && this.selected_tab != StatisticsTab.ITEMS) {
+            this.selected_tab = StatisticsTab.ITEMS;
+            this.leaderboard_statistic = null;
+            while (!this.selected_tab.getAllowedSortCriteria().contains(this.sort_criteria)) { this.sort_criteria = sort_criteria.next(); }
+        }
+    }
+
+    /**
+     * Update the open statistics screens whose stats changed, at most once per interval.
+     * Only the slots whose stacks changed are sent. Screens without changes are only compared with
+     * the stat versions they were rendered with, nothing is rebuilt for them:
+     * the GENERAL tab only looks at the viewer's own scores and the stat metadata,
+     * so other players' score changes cost it nothing.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public static void tickLiveScreens() {
+        if (LIVE_SCREENS.isEmpty() || ++TICKS_SINCE_LIVE_UPDATE < LIVE_UPDATE_INTERVAL)
+            return;
+
+        TICKS_SINCE_LIVE_UPDATE = 0;
+
+        for (StatisticsScreen screen : new ArrayList<>(LIVE_SCREENS.values())) {
+            // Forget screens that were closed, or replaced by another screen.
+            if (screen.player.isRemoved() || screen.player.currentScreenHandler != screen.handler) {
+                LIVE_SCREENS.remove(screen.player.getUuid(), screen);
+                continue;
+            }
+
+            if (screen.getStatVersion() == screen.rendered_stat_version
+                    && (!screen.showsCustomStats() || screen.getCustomVersion() == screen.rendered_custom_version))
+                continue;
+
+            // Patch the changed slots, or rebuild the screen in the same handler if the layout changed.
+            if (!screen.patchPage(screen.handler) && screen.handler instanceof TexturedScreenHandler textured_handler) {
+                textured_handler.replaceScreen(screen);
+                screen.trackHandler();
+            }
+        }
+    }
+
+    /**
+     * Get the version of the player stats the current view shows
+     */
+    private int getStatVersion() {
+        ItemStatTracker tracker = (ItemStatTracker) this.player.getStatHandler();
+        return this.selected_tab == StatisticsTab.ITEMS ? tracker.topper$getItemStatVersion() : tracker.topper$getStatVersion();
+    }
+
+    /**
+     * Does the current view show custom stats (or a custom stat's leaderboard)?
+     */
+    private boolean showsCustomStats() { return this.selected_tab == StatisticsTab.GENERAL; }
+
+    /**
+     * Get the version of the custom stats the current view shows:
+     * the stat metadata, plus either the viewed leaderboard or the viewer's own scores
+     */
+    private long getCustomVersion() {
+        CustomStatisticsAugment augment = CustomStatisticsAugment.getInstance();
+        int shown_version;
+
+        // A leaderboard shows every score of its stat, and the names of the players that have them.
+        if (this.leaderboard_statistic != null)
+            shown_version = this.leaderboard_statistic.getVersion() + augment.getPlayers().getVersion();
+        else
+            shown_version = augment.getScoreIndex().getChangeVersion(this.getPlayerId());
+
+        return ((long) augment.getMetadataVersion() << 32) | (shown_version & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the custom stats id of the viewer
+     */
+    private int getPlayerId() {
+        PlayerSymbolTable players = CustomStatisticsAugment.getInstance().getPlayers();
+        int player_id = players.getId(this.player.getUuid());
+        if (player_id == PlayerSymbolTable.UNKNOWN) player_id = players.getId(this.player.getGameProfile().getName());
+        return player_id;
+    }
+
     /**
      * Get all the custom items & blocks
-     * Ordered by the current sort order and filtered by the current tab.
+     * Filtered by the current search query and tab, the ordering happens per page.
      *
      * @author  Jade Godwin         <icanhasabanana@gmail.com>
      * @since    0.2.0
      */
     private List<Item> getItems() {
-        // If all items does not yet exist, make it.
-        if (BlackBlockTopper.CREATIVE_ITEMS_FLATTENED == null)
-            BlackBlockTopper.CREATIVE_ITEMS_FLATTENED = BlackBlockTopper.CREATIVE_ITEMS.values().stream().toList();
+        // Only the items matching the search query are considered.
+        List<Item> matching_items = this.getSearchedItems();
         ArrayList<Item> returned_items = new ArrayList<>();
 
         // If we're hiding empty stats, we need to only add on the ones that don't have 0's in AT LEAST one stat.
         if (hide_empty_stats) {
-            BlackBlockTopper.CREATIVE_ITEMS_FLATTENED.forEach(item -> {
-                if (!(
-                        (!(item instanceof BlockItem blockItem) || player.getStatHandler().getStat(Stats.MINED.getOrCreateStat(blockItem.getBlock())) == 0) &&
-                        player.getStatHandler().getStat(Stats.CRAFTED.getOrCreateStat(item)) == 0 &&
-                        player.getStatHandler().getStat(Stats.USED.getOrCreateStat(item)) == 0 &&
-                        player.getStatHandler().getStat(Stats.BROKEN.getOrCreateStat(item)) == 0 &&
-                        player.getStatHandler().getStat(Stats.PICKED_UP.getOrCreateStat(item)) == 0 &&
-                        player.getStatHandler().getStat(Stats.DROPPED.getOrCreateStat(item)) == 0)
-                ) {
+            ItemStatMatrix matrix = ItemStatMatrix.get(this.player, BlackBlockTopper.getCreativeItems());
+            matching_items.forEach(item -> {
+                if (!matrix.isEmpty(item))
                     returned_items.add(item);
-                }
             });
         }
 
         // Copy all items over.
         else {
-            returned_items.addAll(BlackBlockTopper.CREATIVE_ITEMS_FLATTENED);
+            returned_items.addAll(matching_items);
         }
 
-        // Implement sort criteria & return.
-        this.sort_criteria.sort(returned_items, this.sort_order, this.player);
         return returned_items;
     }
 
     /**
      * Get all the general stats under the blackblock and bbstats namespaces.
      * Because of the way the general stats work, these have to be re-generated every time as they are NOT shared
-     * between players.
+     * between players. Only lightweight rows are made here, the stacks are created for the visible page only.
      *
      * @author  Jade Godwin         <icanhasabanana@gmail.com>
      * @since    0.2.0
      */
-    private List<ItemStack> getGeneralStats() {
-        // Create item stacks from mod-level statistics.
-        List<ItemStack> mod_stacks = new ArrayList<>();
+    private List<GeneralStatRow> getGeneralStats() {
+        // Create rows from mod-level statistics.
+        List<GeneralStatRow> mod_rows = new ArrayList<>();
         BlackBlockTopper.STAT_ITEMS.forEach((id, item) -> {
             // Get stat & formatter. Skip if stat is 0 and we're hiding empty stats.
             StatFormatter formatter = BlackBlockCore.STAT_FORMATS.get(id).getFormatter();
             int stat = player.getStatHandler().getStat(Stats.CUSTOM.getOrCreateStat(id, formatter));
-            if (!(hide_empty_stats && stat == 0)) {
-
-                // Instantiate item stack.
-                ItemStack stack = new ItemStack(item);
-
-                // Give the stack the appropriate name (translatable) and value, then put into list.
-                stack.set(DataComponentTypes.CUSTOM_NAME, Text.translatable("stat." + id.toTranslationKey()).append(Text.literal(": ").append(Text.literal(formatter.format(stat)).formatted(Formatting.WHITE))).setStyle(Style.EMPTY.withColor(Formatting.YELLOW).withItalic(false)));
-                mod_stacks.add(stack);
-            }
+            if (!(hide_empty_stats && stat == 0))
+                mod_rows.add(GeneralStatRow.ofModStat(id, item, formatter, stat));
         });
 
         // If sort criteria is default, do an alphabetical sort NOW.
-        if (this.sort_criteria == SortCriteria.DEFAULT) SortCriteria.ALPHABETICAL.sort(mod_stacks, player, SortOrder.DESCENDING);
-
-        // Create item stacks from mod-level statistics.
-        List<ItemStack> custom_stacks = new ArrayList<>();
-        CustomStatisticsAugment.getInstance().getCustomStatistics().forEach(customStatistic -> {
-            // Skip if stat is 0 and we're hiding empty stats.
-            if (!(hide_empty_stats && customStatistic.getScore(player.getName().getString()) == 0)) {
-                // Instantiate item stack.
-                ItemStack stack = customStatistic.getDisplayItem().copy();
-
-                // Give the stack the appropriate name and value, put the owner in the lore and NBT, then put into list.
-                stack.set(DataComponentTypes.CUSTOM_NAME, Text.literal(customStatistic.getDisplayName()).append(Text.literal(": ").append(Text.literal(String.valueOf(customStatistic.getFormattedScore(player.getName().getString()))).formatted(Formatting.WHITE))).setStyle(Style.EMPTY.withColor(Formatting.YELLOW).withItalic(false)));
-                NbtComponent nbt = stack.get(DataComponentTypes.CUSTOM_DATA);
-                if (nbt != null) {
-                    NbtCompound nbt2 = nbt.getNbt();
-                    nbt2.putString("custom_stat_owner", customStatistic.getOwner());
-                    stack.set(DataComponentTypes.CUSTOM_DATA, NbtComponent.of(nbt2));
-                }
-                custom_stacks.add(stack);
-            }
-        });
+        if (this.sort_criteria == SortCriteria.DEFAULT) SortCriteria.ALPHABETICAL.sort(mod_rows, SortOrder.DESCENDING);
 
-        // If sort criteria is default, do an alphabetical THEN an owner sort NOW.
-        if (this.sort_criteria == SortCriteria.DEFAULT) {
-            SortCriteria.ALPHABETICAL.sort(custom_stacks, player, SortOrder.DESCENDING);
-        }
+        // Get this player's non-zero custom stat scores straight out of the reverse index.
+        CustomStatisticsAugment augment = CustomStatisticsAugment.getInstance();
+        Reference2IntMap<CustomStatistic> player_scores = augment.getPlayerScores(this.getPlayerId());
+
+        // When hiding empty stats, the indexed stats are exactly the ones to show.
+        Collection<CustomStatistic> statistics = hide_empty_stats ? player_scores.keySet() : augment.getCustomStatistics();
+
+        // Create rows from custom statistics.
+        List<GeneralStatRow> custom_rows = new ArrayList<>(statistics.size());
+        statistics.forEach(customStatistic -> custom_rows.add(GeneralStatRow.ofCustomStat(customStatistic, player_scores.getInt(customStatistic))));
+
+        // If sort criteria is default, do an alphabetical sort NOW.
+        if (this.sort_criteria == SortCriteria.DEFAULT)
+            SortCriteria.ALPHABETICAL.sort(custom_rows, SortOrder.DESCENDING);
 
-        // Combine the two stacks.
-        List<ItemStack> all_stacks = new ArrayList<>();
-        all_stacks.addAll(mod_stacks);
-        all_stacks.addAll(custom_stacks);
+        // Combine the two lists.
+        List<GeneralStatRow> all_rows = new ArrayList<>(mod_rows.size() + custom_rows.size());
+        all_rows.addAll(mod_rows);
+        all_rows.addAll(custom_rows);
 
         // Perform final sorting stuff.
-        if (this.sort_criteria != SortCriteria.DEFAULT) this.sort_criteria.sort(all_stacks, player, this.sort_order);
-        else if (this.sort_order == SortOrder.ASCENDING) Collections.reverse(all_stacks);
+        if (this.sort_criteria != SortCriteria.DEFAULT) this.sort_criteria.sort(all_rows, this.sort_order);
+        else if (this.sort_order == SortOrder.ASCENDING) Collections.reverse(all_rows);
 
         // Return.
-        return all_stacks;
+        return all_rows;
     }
 
     /**
@@ -168,9 +284,9 @@ public class StatisticsScreen extends ItemBrowsingScreen {
 
         // Set up tab button listeners. All 3 buttons have the same function.
         SlotEventListener listener = (screen, slot) -> {
-            this.selected_tab = tab; this.page = 1;
+            this.selected_tab = tab; this.page = 1; this.leaderboard_statistic = null;
             while (!this.selected_tab.getAllowedSortCriteria().contains(this.sort_criteria)) { this.sort_criteria = sort_criteria.next(); }
-            screen.replaceScreen(this);
+            screen.replaceScreen(this); this.trackHandler();
         };
         tab_button.addLeftClickListener(listener);
         tab_button.addRightClickListener(listener);
@@ -196,7 +312,7 @@ public class StatisticsScreen extends ItemBrowsingScreen {
         // Add click behavior.
         SlotEventListener left_click_behavior = (screen, slot) -> {
             this.hide_empty_stats = !this.hide_empty_stats;
-            screen.replaceScreen(this);
+            screen.replaceScreen(this); this.trackHandler();
         };
         hide_button.addLeftClickListener(left_click_behavior);
         hide_button.addMiddleClickListener(left_click_behavior);
@@ -222,13 +338,13 @@ public class StatisticsScreen extends ItemBrowsingScreen {
         // Set criteria button behavior. Middle click and left click have the same function.
         SlotEventListener left_click_criteria_behavior = (screen, slot) -> {
             do { this.sort_criteria = sort_criteria.next(); } while (!this.selected_tab.getAllowedSortCriteria().contains(this.sort_criteria));
-            this.page = 1; screen.replaceScreen(this);
+            this.page = 1; screen.replaceScreen(this); this.trackHandler();
         };
         criteria_button.addLeftClickListener(left_click_criteria_behavior);
         criteria_button.addMiddleClickListener(left_click_criteria_behavior);
         criteria_button.addRightClickListener((screen, slot) -> {
             do { this.sort_criteria = sort_criteria.prev(); } while (!this.selected_tab.getAllowedSortCriteria().contains(this.sort_criteria));
-            this.page = 1; screen.replaceScreen(this);
+            this.page = 1; screen.replaceScreen(this); this.trackHandler();
         });
 
         // Add order button.
@@ -240,13 +356,13 @@ public class StatisticsScreen extends ItemBrowsingScreen {
         // Set order button behavior. Middle click and left click have the same function.
         SlotEventListener left_click_order_behavior = (screen, slot) -> {
             this.sort_order = sort_order.next();
-            this.page = 1; screen.replaceScreen(this);
+            this.page = 1; screen.replaceScreen(this); this.trackHandler();
         };
         order_button.addLeftClickListener(left_click_order_behavior);
         order_button.addMiddleClickListener(left_click_order_behavior);
         order_button.addRightClickListener((screen, slot) -> {
             this.sort_order = sort_order.prev();
-            this.page = 1; screen.replaceScreen(this);
+            this.page = 1; screen.replaceScreen(this); this.trackHandler();
         });
     }
 
@@ -271,126 +387,187 @@ public class StatisticsScreen extends ItemBrowsingScreen {
         this.addTabButton(sb, 0, StatisticsTab.GENERAL);
         this.addTabButton(sb, 9, StatisticsTab.ITEMS);
 
+        // A custom stat's leaderboard has a fixed order, so it gets no filter or sort buttons.
+        if (this.selected_tab == StatisticsTab.GENERAL && this.leaderboard_statistic != null) {
+            this.addPageItems(sb);
+            return sb;
+        }
+
         // Add hide empty button.
         this.addHideEmptyButton(sb, 27);
 
+        // Add the search button, if the items are being searched.
+        if (this.selected_tab == StatisticsTab.ITEMS)
+            this.addSearchButton(sb, 18);
+
         // Add sort buttons.
         this.addSortButtons(sb, 46);
 
         // Add items and return.
-        switch (selected_tab) {
-            case GENERAL -> this.addGeneralStatItems(sb);
-            case ITEMS -> this.addItemItems(sb);
-        }
+        this.addPageItems(sb);
         return sb;
     }
 
 
 
     /**
-     * Add the items to the screen!
-     * As in, the item items. The items with shit like broken, mined, used, dropped, etc.
+     * Select the elements of the current page of the current view:
+     * the items, the general stat rows or the entries of a leaderboard.
      *
-     * @author  Jade Godwin         <icanhasabanana@gmail.com>
-     * @since    0.2.0
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
      */
-    private void addItemItems(ScreenBuilder sb) {
+    @Override
+    protected List<?> selectPageElements() {
+        int slots_per_page = 40;
+
+        // Remember which versions of the stats the page is made of.
+        this.rendered_stat_version = this.getStatVersion();
+        this.rendered_custom_version = this.getCustomVersion();
+
+        // A leaderboard page comes straight out of the stat's leaderboard cache.
+        if (this.selected_tab == StatisticsTab.GENERAL && this.leaderboard_statistic != null) {
+            this.page_count = this.leaderboard_statistic.getLeaderboardPageCount(slots_per_page);
+            return Arrays.asList(this.leaderboard_statistic.getLeaderboardPage(this.page, slots_per_page));
+        }
+
+        if (this.selected_tab == StatisticsTab.GENERAL) {
+            List<GeneralStatRow> rows = this.getGeneralStats();
+            this.page_count = (int) Math.ceil(rows.size() / (double) slots_per_page);
+            int start = Math.max(0, (this.page - 1) * slots_per_page);
+            int end = Math.min(start + slots_per_page, rows.size());
+            return start < end ? rows.subList(start, end) : List.of();
+        }
+
         // Get selected items.
         List<Item> all_selected_items = this.getItems();
+        this.page_count = (int) Math.ceil(all_selected_items.size() / (double) slots_per_page);
+
+        // Select only the items of this page, in the current sort order.
+        // A new matrix means the stats changed, so that invalidates the ordering too.
+        ItemStatMatrix matrix = ItemStatMatrix.get(this.player, BlackBlockTopper.getCreativeItems());
+        return this.getPage(
+                all_selected_items,
+                slots_per_page,
+                List.of(StatisticsTab.ITEMS, this.hide_empty_stats, this.sort_criteria, this.sort_order, matrix),
+                () -> this.sort_criteria.getComparator(all_selected_items, this.sort_order, this.player),
+                sorted -> this.sort_criteria.sort(sorted, this.sort_order, this.player)
+        );
+    }
 
-        // Get page slot info.
-        int slots_per_page = 40;
-        int item_count = all_selected_items.size();
-        int start = (this.page - 1) * slots_per_page;
-        int end = Math.min(start + slots_per_page, item_count);
+    /**
+     * Create the stack of an element of the page, including its lore
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    @Override
+    protected ItemStack createPageStack(Object element) {
+        if (element instanceof GeneralStatRow row) {
+            ItemStack stack = row.createStack();
 
-        // Get subset of items.
-        List<Item> items = all_selected_items.subList(start, end);
+            // Custom stats get their owner in the lore.
+            if (row.owner() != null)
+                stack.set(DataComponentTypes.LORE, new LoreComponent(List.of(Text.literal("ᴄᴜꜱᴛᴏᴍ ꜱᴛᴀᴛɪꜱᴛɪᴄ [" + row.owner() + "]"))));
 
-        // Fill the screen's slots.
-        for (int i = 0; i < items.size(); i++) {
-            // Create stack with statistics on it.
-            ItemStack stack = new ItemStack(items.get(i));
-            stack.set(DataComponentTypes.CUSTOM_NAME, Text.translatable(stack.getTranslationKey()).setStyle(Style.EMPTY.withColor(Formatting.YELLOW).withItalic(false)));
-
-            // Create button stack.
-            ButtonWidgetSlot button = sb.addButton(i + 1 + i / 8);
-            button.setStack(stack);
-
-            // Add on all the stats.
-            button.setLore(Arrays.stream(new MutableText[]{
-                Text.literal("- ").append(Text.literal("Times Mined: " + (items.get(i) instanceof BlockItem blockItem ? player.getStatHandler().getStat(Stats.MINED.getOrCreateStat(blockItem.getBlock())) : "0")).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
-                Text.literal("- ").append(Text.literal("Times Crafted: " + player.getStatHandler().getStat(Stats.CRAFTED.getOrCreateStat(items.get(i)))).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
-                Text.literal("- ").append(Text.literal("Times Used: " + player.getStatHandler().getStat(Stats.USED.getOrCreateStat(items.get(i)))).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
-                Text.literal("- ").append(Text.literal("Times Broken: " + player.getStatHandler().getStat(Stats.BROKEN.getOrCreateStat(items.get(i)))).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
-                Text.literal("- ").append(Text.literal("Picked Up: " + player.getStatHandler().getStat(Stats.PICKED_UP.getOrCreateStat(items.get(i)))).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
-                Text.literal("- ").append(Text.literal("Dropped: " + player.getStatHandler().getStat(Stats.DROPPED.getOrCreateStat(items.get(i)))).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW))
-            }).toList());
-
-            // Set up listener to send message in chat.
-            SlotEventListener listener = (screen, slot) -> {
-                // Send this item's stats in chat.
-                player.sendMessage(Text.translatable(stack.getTranslationKey()).formatted(Formatting.YELLOW).append(Text.literal(" has the following statistics:").formatted(Formatting.WHITE)));
-                if (stack.getItem() instanceof BlockItem blockItem) player.sendMessage(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Mined: " + player.getStatHandler().getStat(Stats.MINED.getOrCreateStat(blockItem.getBlock()))).formatted(Formatting.WHITE)));
-                else player.sendMessage(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Mined: 0").formatted(Formatting.WHITE)));
-                player.sendMessage(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Crafted: " + player.getStatHandler().getStat(Stats.CRAFTED.getOrCreateStat(stack.getItem()))).formatted(Formatting.WHITE)));
-                player.sendMessage(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Used: " + player.getStatHandler().getStat(Stats.USED.getOrCreateStat(stack.getItem()))).formatted(Formatting.WHITE)));
-                player.sendMessage(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Broken: " + player.getStatHandler().getStat(Stats.BROKEN.getOrCreateStat(stack.getItem()))).formatted(Formatting.WHITE)));
-                player.sendMessage(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Picked Up: " + player.getStatHandler().getStat(Stats.PICKED_UP.getOrCreateStat(stack.getItem()))).formatted(Formatting.WHITE)));
-                player.sendMessage(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Dropped: " + player.getStatHandler().getStat(Stats.DROPPED.getOrCreateStat(stack.getItem()))).formatted(Formatting.WHITE)));
-            };
+            return stack;
+        }
 
-            // Add listener to all 3 buttons.
-            button.addLeftClickListener(listener);
-            button.addMiddleClickListener(listener);
-            button.addRightClickListener(listener);
+        if (element instanceof LeaderboardEntry entry) {
+            // Create a head of the player with their rank and score.
+            ItemStack stack = new ItemStack(Items.PLAYER_HEAD);
+            stack.set(DataComponentTypes.PROFILE, new ProfileComponent(Optional.of(entry.name()), Optional.empty(), new PropertyMap()));
+            stack.set(DataComponentTypes.CUSTOM_NAME, Text.literal("#" + entry.rank() + " " + entry.name()).append(Text.literal(": ").append(Text.literal(this.leaderboard_statistic.getFormat().getFormatter().format(entry.score())).formatted(Formatting.WHITE))).setStyle(Style.EMPTY.withColor(Formatting.YELLOW).withItalic(false)));
+            stack.set(DataComponentTypes.LORE, new LoreComponent(List.of(Text.literal("ʟᴇᴀᴅᴇʀʙᴏᴀʀᴅ [" + this.leaderboard_statistic.getDisplayName() + "]"))));
+            return stack;
         }
 
-        // Add pagination!
-        this.setUpPagination(sb, (int) Math.ceil(item_count / (double) slots_per_page));
+        // Create stack with statistics on it.
+        Item item = (Item) element;
+        ItemStack stack = new ItemStack(item);
+        stack.set(DataComponentTypes.CUSTOM_NAME, Text.translatable(stack.getTranslationKey()).setStyle(Style.EMPTY.withColor(Formatting.YELLOW).withItalic(false)));
+
+        // Add on all the stats.
+        int[] stats = ItemStatMatrix.get(this.player, BlackBlockTopper.getCreativeItems()).getRow(item);
+        stack.set(DataComponentTypes.LORE, new LoreComponent(List.of(
+            Text.literal("- ").append(Text.literal("Times Mined: " + stats[ItemStatMatrix.MINED]).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
+            Text.literal("- ").append(Text.literal("Times Crafted: " + stats[ItemStatMatrix.CRAFTED]).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
+            Text.literal("- ").append(Text.literal("Times Used: " + stats[ItemStatMatrix.USED]).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
+            Text.literal("- ").append(Text.literal("Times Broken: " + stats[ItemStatMatrix.BROKEN]).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
+            Text.literal("- ").append(Text.literal("Picked Up: " + stats[ItemStatMatrix.PICKED_UP]).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW)),
+            Text.literal("- ").append(Text.literal("Dropped: " + stats[ItemStatMatrix.DROPPED]).formatted(Formatting.WHITE)).setStyle(Style.EMPTY.withItalic(false).withColor(Formatting.YELLOW))
+        )));
+        return stack;
     }
 
-    private void addGeneralStatItems(ScreenBuilder sb) {
-        // Get selected items.
-        List<ItemStack> all_selected_items = this.getGeneralStats();
+    @Override
+    protected int getPageSlotIndex(int position) { return position + 1 + position / 8; }
 
-        // Get page slot info.
-        int slots_per_page = 40;
-        int item_count = all_selected_items.size();
-        int start = (this.page - 1) * slots_per_page;
-        int end = Math.min(start + slots_per_page, item_count);
+    @Override
+    protected Object getLayoutKey() {
+        Object leaderboard = this.leaderboard_statistic == null ? "" : this.leaderboard_statistic;
+        return List.of(this.selected_tab, this.sort_criteria, this.sort_order, this.hide_empty_stats, leaderboard);
+    }
 
-        // Get subset of items.
-        List<ItemStack> stacks = all_selected_items.subList(start, end);
+    /**
+     * Add the elements of the current page to the screen!
+     * The listeners look up the element at their position, so a page flip only has to patch the stacks.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private void addPageItems(ScreenBuilder sb) {
+        // Select the page.
+        List<ItemStack> stacks = this.preparePage();
 
         // Fill the screen's slots.
         for (int i = 0; i < stacks.size(); i++) {
-            // Create stack with statistics on it.
-            ItemStack stack = stacks.get(i);
-
             // Create button stack.
-            ButtonWidgetSlot button = sb.addButton(i + 1 + i / 8);
-            button.setStack(stack);
-
-            // If stack has a custom_stat_owner attribute, add that to the lore.
-            NbtComponent nbt = stack.get(DataComponentTypes.CUSTOM_DATA);
-            if (nbt != null) {
-                String custom_stat_owner = nbt.getNbt().getString("custom_stat_owner");
-                if (!custom_stat_owner.isEmpty())
-                    button.setLore(Text.literal("ᴄᴜꜱᴛᴏᴍ ꜱᴛᴀᴛɪꜱᴛɪᴄ [" + custom_stat_owner + "]"));
-            }
-
-            // Set up listener to send message in chat.
-            SlotEventListener listener = (screen, slot) -> player.sendMessage(stack.getName());
+            int position = i;
+            ButtonWidgetSlot button = sb.addButton(this.getPageSlotIndex(position));
+            button.setStack(stacks.get(i));
 
             // Add listener to all 3 buttons.
+            SlotEventListener listener = (screen, slot) -> {
+                Object element = this.getPageElement(position);
+
+                // Custom stats open their leaderboard.
+                if (element instanceof GeneralStatRow row && row.isCustom()) {
+                    this.leaderboard_statistic = row.statistic(); this.page = 1;
+                    screen.replaceScreen(this); this.trackHandler();
+                } else if (element instanceof Item item) {
+                    this.sendItemStats(item);
+                } else if (element != null) {
+                    player.sendMessage(this.getPageStack(position).getName());
+                }
+            };
             button.addLeftClickListener(listener);
             button.addMiddleClickListener(listener);
             button.addRightClickListener(listener);
         }
 
         // Add pagination!
-        this.setUpPagination(sb, (int) Math.ceil(item_count / (double) slots_per_page));
+        this.setUpPagination(sb, this.page_count);
+    }
+
+    /**
+     * Send the current stats of the given item in chat.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    private void sendItemStats(Item item) {
+        int[] current = ItemStatMatrix.get(player, BlackBlockTopper.getCreativeItems()).getRow(item);
+
+        // Gather all the lines into a single message.
+        ChatOutput output = new ChatOutput(Text.translatable(item.getTranslationKey()).formatted(Formatting.YELLOW).append(Text.literal(" has the following statistics:").formatted(Formatting.WHITE)));
+        output.addLine(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Mined: " + current[ItemStatMatrix.MINED]).formatted(Formatting.WHITE)));
+        output.addLine(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Crafted: " + current[ItemStatMatrix.CRAFTED]).formatted(Formatting.WHITE)));
+        output.addLine(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Used: " + current[ItemStatMatrix.USED]).formatted(Formatting.WHITE)));
+        output.addLine(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Times Broken: " + current[ItemStatMatrix.BROKEN]).formatted(Formatting.WHITE)));
+        output.addLine(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Picked Up: " + current[ItemStatMatrix.PICKED_UP]).formatted(Formatting.WHITE)));
+        output.addLine(Text.literal("- ").formatted(Formatting.YELLOW).append(Text.literal("Dropped: " + current[ItemStatMatrix.DROPPED]).formatted(Formatting.WHITE)));
+        output.sendTo(player);
     }
 
     /**
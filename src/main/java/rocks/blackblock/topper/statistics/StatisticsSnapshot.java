@@ -0,0 +1,45 @@
+package rocks.blackblock.topper.statistics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, versioned copy of all the custom statistics.
+ * Read-only commands and integrations can use it from any thread.
+ *
+ * A new snapshot is only published when a stat's metadata, the list of stats or the player names
+ * changed, and it reuses the views of the stats that did not change since the previous one.
+ * The views do not contain the scores: see {@link CustomStatistic#getScoredView()}.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public final class StatisticsSnapshot {
+
+    public static final StatisticsSnapshot EMPTY = new StatisticsSnapshot(0, List.of(), new String[0]);
+
+    private final long version;
+    private final List<StatisticView> statistics;
+    private final Map<String, StatisticView> statistics_by_path = new HashMap<>();
+    private final String[] player_names;
+
+    public StatisticsSnapshot(long version, List<StatisticView> statistics, String[] player_names) {
+        this.version = version;
+        this.statistics = Collections.unmodifiableList(statistics);
+        this.player_names = player_names;
+
+        for (StatisticView view : statistics)
+            if (view.key().getNamespace().equals("bbstats"))
+                this.statistics_by_path.putIfAbsent(view.key().getPath(), view);
+    }
+
+    public long getVersion() { return this.version; }
+
+    public List<StatisticView> getStatistics() { return this.statistics; }
+
+    public StatisticView getStatistic(String key) { return this.statistics_by_path.get(key); }
+
+    public String[] getPlayerNames() { return this.player_names; }
+}
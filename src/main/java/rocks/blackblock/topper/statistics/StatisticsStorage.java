@@ -0,0 +1,205 @@
+package rocks.blackblock.topper.statistics;
+
+import com.google.common.io.ByteStreams;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtSizeTracker;
+import rocks.blackblock.topper.BlackBlockTopper;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Stores the custom statistics in their own checksummed file.
+ *
+ * A save is written to a temporary file, synced and then atomically renamed over the current file,
+ * after which the directory is synced too.
+ * The previous file is kept as a fallback generation, in case the current one turns out to be corrupt.
+ * A current file that failed to load is never rotated into the fallback, so the good copy is kept.
+ *
+ * Layout (version 1):
+ *   magic int, version byte, payload length long, uncompressed NBT payload, CRC32C of the payload
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.3.0
+ */
+public class StatisticsStorage {
+
+    private static final int MAGIC = 0x42425354;
+    private static final byte VERSION = 1;
+    private static final String FILE_NAME = "custom_statistics.dat";
+
+    private final Path directory;
+
+    // Set when the current file failed to load: it is then replaced instead of rotated
+    private boolean current_is_corrupt = false;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Topper Stat Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StatisticsStorage(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Load the newest valid generation.
+     *
+     * @return   The stored data, or null if there is no valid file
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public synchronized NbtCompound load() {
+        Path path = this.getPath("");
+        this.current_is_corrupt = false;
+
+        if (Files.exists(path)) {
+            try {
+                return read(path);
+            } catch (IOException | RuntimeException e) {
+                BlackBlockTopper.LOGGER.error("Custom statistics file " + path.getFileName() + " is corrupt, trying the previous one", e);
+                this.current_is_corrupt = true;
+            }
+        }
+
+        Path old_path = this.getPath("_old");
+        if (Files.exists(old_path)) {
+            try {
+                return read(old_path);
+            } catch (IOException | RuntimeException e) {
+                BlackBlockTopper.LOGGER.error("Custom statistics file " + old_path.getFileName() + " is corrupt too", e);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Write the given data on the writer thread.
+     * Saves are written in the order they were requested.
+     *
+     * @param    on_saved   Called on the writer thread once the data is safely on disk
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void saveInBackground(NbtCompound data, Consumer<NbtCompound> on_saved) {
+        Runnable task = () -> {
+            try {
+                this.save(data);
+                on_saved.accept(data);
+            } catch (IOException e) {
+                BlackBlockTopper.LOGGER.error("Failed to save the custom statistics", e);
+            }
+        };
+
+        // After the storage was closed, saves happen right away.
+        if (this.writer.isShutdown()) task.run();
+        else this.writer.execute(task);
+    }
+
+    /**
+     * Write the given data: temp file, sync, atomic rename, then sync the directory.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public synchronized void save(NbtCompound data) throws IOException {
+        Files.createDirectories(this.directory);
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        NbtIo.writeCompound(data, new DataOutputStream(payload));
+        byte[] bytes = payload.toByteArray();
+
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(MAGIC);
+        header.put(VERSION);
+        header.putLong(bytes.length);
+        header.flip();
+
+        ByteBuffer footer = ByteBuffer.allocate(4);
+        footer.putInt((int) crc.getValue());
+        footer.flip();
+
+        Path temp_path = this.getPath("_tmp");
+        try (FileChannel channel = FileChannel.open(temp_path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(new ByteBuffer[]{header, ByteBuffer.wrap(bytes), footer});
+            channel.force(true);
+        }
+
+        // Keep the current file as the fallback generation,
+        // unless it is corrupt: then the fallback is the only good copy and the current file is simply replaced.
+        Path path = this.getPath("");
+        if (!this.current_is_corrupt && Files.exists(path))
+            Files.move(path, this.getPath("_old"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Files.move(temp_path, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.current_is_corrupt = false;
+
+        // The renames are only durable once the directory itself is synced.
+        try (FileChannel directory = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Some platforms (like Windows) can not open a directory, the rename is durable there already.
+        }
+    }
+
+    /**
+     * Wait for the pending saves, after which saves are written right away.
+     *
+     * @author   Jelle De Loecker   <jelle@elevenways.be>
+     * @since    0.3.0
+     */
+    public void close() {
+        this.writer.shutdown();
+        try {
+            this.writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read & verify a file.
+     * The checksum is calculated while the NBT is being parsed, so the data is only read once.
+     */
+    private static NbtCompound read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 65536))) {
+            if (input.readInt() != MAGIC || input.readByte() != VERSION)
+                throw new IOException("Unknown file format");
+
+            long length = input.readLong();
+            CheckedInputStream payload = new CheckedInputStream(ByteStreams.limit(input, length), new CRC32C());
+            NbtCompound data = NbtIo.readCompound(new DataInputStream(payload), NbtSizeTracker.ofUnlimitedBytes());
+
+            // Anything the NBT reader did not need still counts for the checksum.
+            ByteStreams.exhaust(payload);
+            if (payload.getChecksum().getValue() != (input.readInt() & 0xFFFFFFFFL))
+                throw new IOException("Checksum mismatch");
+
+            return data;
+        } catch (EOFException e) {
+            throw new IOException("File is truncated", e);
+        }
+    }
+
+    private Path getPath(String suffix) {
+        return this.directory.resolve(FILE_NAME + suffix);
+    }
+}
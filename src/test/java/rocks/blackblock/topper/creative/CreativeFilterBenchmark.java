@@ -0,0 +1,97 @@
+package rocks.blackblock.topper.creative;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.util.Identifier;
+import org.openjdk.jmh.annotations.*;
+import rocks.blackblock.topper.screen.ItemSearchIndex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering 5,000 registered creative items by tab (and search query) with the bitset index,
+ * compared to the old way of checking every item against the tab's list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreativeFilterBenchmark {
+
+    @Param({"5000"})
+    public int item_count;
+
+    @Param({"BUILDING_BLOCKS", "ALL"})
+    public CreativeTab tab;
+
+    private List<Item> items;
+    private HashMap<CreativeTab, ArrayList<Item>> tab_filters;
+    private CreativeTabIndex tab_index;
+    private ItemSearchIndex search_index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SharedConstants.createGameVersion();
+
+        // The registries are frozen by the bootstrap, so the items are registered before it (like a mod would).
+        this.items = new ArrayList<>(this.item_count);
+        for (int i = 0; i < this.item_count; i++)
+            this.items.add(Registry.register(Registries.ITEM, Identifier.of("topper_benchmark", "item_" + i), new Item(new Item.Settings())));
+
+        Bootstrap.initialize();
+
+        // Every item is put on 1 or 2 tabs.
+        Random random = new Random(42);
+        CreativeTab[] tabs = CreativeTab.values();
+        this.tab_filters = new HashMap<>();
+        for (CreativeTab tab : tabs)
+            if (tab != CreativeTab.ALL) this.tab_filters.put(tab, new ArrayList<>());
+
+        for (Item item : this.items) {
+            int placements = 1 + random.nextInt(2);
+            for (int i = 0; i < placements; i++)
+                this.tab_filters.get(tabs[random.nextInt(tabs.length - 1)]).add(item);
+        }
+
+        this.tab_index = new CreativeTabIndex(this.items, this.tab_filters);
+        this.search_index = new ItemSearchIndex(this.items);
+    }
+
+    @Benchmark
+    public List<Item> filterTab() {
+        return this.tab_index.getItems(this.tab_index.getMembers(this.tab));
+    }
+
+    @Benchmark
+    public List<Item> filterTabWithListContains() {
+        if (this.tab == CreativeTab.ALL) return new ArrayList<>(this.items);
+
+        ArrayList<Item> filter = this.tab_filters.get(this.tab);
+        ArrayList<Item> result = new ArrayList<>();
+        for (Item item : this.items)
+            if (filter.contains(item)) result.add(item);
+        return result;
+    }
+
+    @Benchmark
+    public List<Item> filterTabAndSearch() {
+        BitSet selection = this.tab_index.getMembers(this.tab);
+        selection.and(this.search_index.searchSet("item_12"));
+        return this.tab_index.getItems(selection);
+    }
+
+    @Benchmark
+    public CreativeTabIndex buildTabIndex() {
+        return new CreativeTabIndex(this.items, this.tab_filters);
+    }
+}
@@ -0,0 +1,58 @@
+package rocks.blackblock.topper.creative;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreativeTabIndexTest {
+
+    private static List<Item> items;
+    private static CreativeTabIndex index;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        items = List.of(Items.STONE, Items.APPLE, Items.OAK_LOG, Items.BREAD, Items.CRAFTING_TABLE);
+        index = new CreativeTabIndex(items, Map.of(
+                CreativeTab.BUILDING_BLOCKS, List.of(Items.OAK_LOG, Items.STONE),
+                CreativeTab.FOOD, List.of(Items.BREAD, Items.APPLE, Items.DIAMOND),
+                CreativeTab.FUNCTIONAL_BLOCKS, List.of(Items.CRAFTING_TABLE, Items.OAK_LOG)));
+    }
+
+    @Test
+    void tabsKeepThePlacementOrder() {
+        assertEquals(List.of(Items.STONE, Items.OAK_LOG), index.getItems(index.getMembers(CreativeTab.BUILDING_BLOCKS)));
+        assertEquals(List.of(Items.APPLE, Items.BREAD), index.getItems(index.getMembers(CreativeTab.FOOD)));
+        assertEquals(items, index.getItems(index.getMembers(CreativeTab.ALL)));
+    }
+
+    @Test
+    void tabsWithoutItemsAreEmpty() {
+        assertTrue(index.getMembers(CreativeTab.COSMETICS).isEmpty());
+    }
+
+    @Test
+    void tabsCanBeIntersected() {
+        assertEquals(List.of(Items.OAK_LOG), index.getItems(index.intersect(CreativeTab.BUILDING_BLOCKS, CreativeTab.FUNCTIONAL_BLOCKS)));
+        assertTrue(index.intersect(CreativeTab.BUILDING_BLOCKS, CreativeTab.FOOD).isEmpty());
+        assertEquals(index.getMembers(CreativeTab.ALL), index.intersect());
+    }
+
+    @Test
+    void membersAreACopy() {
+        BitSet members = index.getMembers(CreativeTab.FOOD);
+        members.clear();
+        assertEquals(2, index.getMembers(CreativeTab.FOOD).cardinality());
+    }
+}
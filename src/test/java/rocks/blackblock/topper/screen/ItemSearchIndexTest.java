@@ -0,0 +1,58 @@
+package rocks.blackblock.topper.screen;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchIndexTest {
+
+    private static List<Item> items;
+    private static ItemSearchIndex index;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        items = Registries.ITEM.stream().toList();
+        index = new ItemSearchIndex(items);
+    }
+
+    @Test
+    void searchFindsTheSameItemsAsAFullScan() {
+        String[] queries = {"s", "st", "sto", "stone", "Diamond ", "_sword", "minecraft:oak", "item.minecraft.bread", "golden apple", "zzzz"};
+
+        for (String query : queries) {
+            String needle = query.trim().toLowerCase();
+            List<Item> expected = new ArrayList<>();
+            for (Item item : items) {
+                String text = (item.getName().getString() + "\n" + item.getTranslationKey() + "\n" + Registries.ITEM.getId(item)).toLowerCase();
+                if (text.contains(needle)) expected.add(item);
+            }
+
+            assertEquals(expected, index.filter(query), "Query \"" + query + "\"");
+        }
+    }
+
+    @Test
+    void emptyQueriesMatchEverything() {
+        assertNull(index.search(null));
+        assertNull(index.search("   "));
+        assertSame(items, index.filter(""));
+    }
+
+    @Test
+    void searchSetHasTheSameOrdinals() {
+        int[] ordinals = index.search("log");
+        assertTrue(ordinals.length > 0);
+        assertArrayEquals(ordinals, index.searchSet("log").stream().toArray());
+    }
+}
@@ -0,0 +1,87 @@
+package rocks.blackblock.topper.screen;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import org.openjdk.jmh.annotations.*;
+import rocks.blackblock.topper.statistics.GeneralStatRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting thousands of items & stat rows on precomputed keys,
+ * compared to the old way of resolving the name inside of the comparator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortBenchmark {
+
+    @Param({"1000", "5000"})
+    public int item_count;
+
+    @Param({"ASCENDING", "DESCENDING"})
+    public SortOrder sort_order;
+
+    private List<Item> items;
+    private List<GeneralStatRow> rows;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        // Repeat the registered items until there are enough of them.
+        List<Item> registered = Registries.ITEM.stream().toList();
+        Random random = new Random(42);
+        this.items = new ArrayList<>(this.item_count);
+        this.rows = new ArrayList<>(this.item_count);
+
+        for (int i = 0; i < this.item_count; i++) {
+            this.items.add(registered.get(random.nextInt(registered.size())));
+
+            String name = "Stat " + random.nextInt(this.item_count);
+            String owner = random.nextInt(4) == 0 ? null : "player_" + random.nextInt(50);
+            this.rows.add(new GeneralStatRow(Identifier.of("bbstats", "stat_" + i), name, name, owner, i, null, null, null));
+        }
+    }
+
+    @Benchmark
+    public List<Item> sortItemsAlphabetically() {
+        List<Item> items = new ArrayList<>(this.items);
+        SortCriteria.ALPHABETICAL.sort(items, this.sort_order, null);
+        return items;
+    }
+
+    @Benchmark
+    public List<Item> sortItemsAlphabeticallyInComparator() {
+        List<Item> items = new ArrayList<>(this.items);
+        items.sort(Comparator.comparing(item -> item.getName().getString().toLowerCase()));
+        if (this.sort_order == SortOrder.ASCENDING) Collections.reverse(items);
+        return items;
+    }
+
+    @Benchmark
+    public List<GeneralStatRow> sortRowsAlphabetically() {
+        List<GeneralStatRow> rows = new ArrayList<>(this.rows);
+        SortCriteria.ALPHABETICAL.sort(rows, this.sort_order);
+        return rows;
+    }
+
+    @Benchmark
+    public List<GeneralStatRow> sortRowsByOwner() {
+        List<GeneralStatRow> rows = new ArrayList<>(this.rows);
+        SortCriteria.OWNER.sort(rows, this.sort_order);
+        return rows;
+    }
+}
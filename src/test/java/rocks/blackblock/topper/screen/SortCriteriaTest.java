@@ -0,0 +1,51 @@
+package rocks.blackblock.topper.screen;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import rocks.blackblock.topper.statistics.GeneralStatRow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortCriteriaTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    void equalNamesKeepTheirOrderAndAscendingIsTheExactReverse() {
+        List<GeneralStatRow> rows = List.of(row(0, "Kills", null), row(1, "deaths", null), row(2, "kills", null), row(3, "Assists", null));
+
+        List<GeneralStatRow> descending = new ArrayList<>(rows);
+        SortCriteria.ALPHABETICAL.sort(descending, SortOrder.DESCENDING);
+        assertEquals(List.of(3, 1, 0, 2), getValues(descending));
+
+        List<GeneralStatRow> ascending = new ArrayList<>(rows);
+        SortCriteria.ALPHABETICAL.sort(ascending, SortOrder.ASCENDING);
+        assertEquals(List.of(2, 0, 1, 3), getValues(ascending));
+    }
+
+    @Test
+    void rowsWithoutAnOwnerGoLast() {
+        List<GeneralStatRow> rows = new ArrayList<>(List.of(row(0, "b", null), row(1, "b", "bob"), row(2, "a", "bob"), row(3, "a", null), row(4, "z", "alice")));
+
+        SortCriteria.OWNER.sort(rows, SortOrder.DESCENDING);
+        assertEquals(List.of(4, 2, 1, 3, 0), getValues(rows));
+    }
+
+    private static GeneralStatRow row(int value, String name, String owner) {
+        return new GeneralStatRow(Identifier.of("bbstats", "stat_" + value), name, name, owner, value, null, null, null);
+    }
+
+    private static List<Integer> getValues(List<GeneralStatRow> rows) {
+        return rows.stream().map(GeneralStatRow::value).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package rocks.blackblock.topper.server;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.command.CommandOutput;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.ClickEvent;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.Vec2f;
+import net.minecraft.util.math.Vec3d;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatOutputTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    void itemStatsAreSentAsOneMessage() {
+        String[] lines = {"Times Mined: 1", "Times Crafted: 2", "Times Used: 3", "Times Broken: 4", "Picked Up: 5", "Dropped: 6"};
+
+        // Before: the header and every line were sent separately.
+        CountingOutput before = new CountingOutput();
+        ServerCommandSource before_source = before.createSource();
+        before_source.sendFeedback(() -> Text.literal("Stone has the following statistics:"), false);
+        for (String line : lines)
+            before_source.sendFeedback(() -> Text.literal("- " + line), false);
+
+        // After: they are gathered into a single message.
+        CountingOutput after = new CountingOutput();
+        ChatOutput output = new ChatOutput(Text.literal("Stone has the following statistics:"));
+        for (String line : lines)
+            output.addLine(Text.literal("- " + line));
+        output.sendTo(after.createSource());
+
+        assertEquals(7, before.messages.size());
+        assertEquals(1, after.messages.size());
+
+        // Nothing got lost on the way.
+        String[] received = after.messages.get(0).getString().split("\n");
+        for (int i = 0; i < before.messages.size(); i++)
+            assertEquals(before.messages.get(i).getString(), received[i]);
+    }
+
+    @Test
+    void linesThatDoNotFitAreReplacedByAPager() {
+        ChatOutput output = new ChatOutput(Text.literal("Scores:"));
+        for (int i = 0; i < 50; i++)
+            output.addLine(Text.literal("#" + (i + 1)));
+        output.addHidden(100);
+        output.setMoreCommand("/bbstats players list kills 2");
+
+        CountingOutput counter = new CountingOutput();
+        output.sendTo(counter.createSource());
+        assertEquals(1, counter.messages.size());
+
+        Text message = counter.messages.get(0);
+        String[] lines = message.getString().split("\n");
+        assertEquals(ChatOutput.MAX_LINES, output.getLineCount());
+        assertEquals(ChatOutput.MAX_LINES + 2, lines.length);
+        assertEquals("... and 130 more [more]", lines[lines.length - 1]);
+        assertEquals(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/bbstats players list kills 2"), getLastClickEvent(message));
+    }
+
+    @Test
+    void outputIsCappedInCharacters() {
+        ChatOutput output = new ChatOutput(Text.literal("Stats:"));
+        String long_line = "x".repeat(500);
+        for (int i = 0; i < 10; i++)
+            output.addLine(Text.literal(long_line));
+
+        assertEquals(4, output.getLineCount());
+        assertTrue(output.build().getString().length() <= ChatOutput.MAX_CHARACTERS + 32);
+    }
+
+    private static ClickEvent getLastClickEvent(Text text) {
+        ClickEvent click_event = text.getStyle().getClickEvent();
+        for (Text sibling : text.getSiblings()) {
+            ClickEvent sibling_event = getLastClickEvent(sibling);
+            if (sibling_event != null) click_event = sibling_event;
+        }
+        return click_event;
+    }
+
+    /**
+     * A command output that counts the messages sent to it, which would each be a chat packet for a player
+     */
+    private static class CountingOutput implements CommandOutput {
+
+        private final List<Text> messages = new ArrayList<>();
+
+        private ServerCommandSource createSource() {
+            return new ServerCommandSource(this, Vec3d.ZERO, Vec2f.ZERO, null, 0, "test", Text.literal("test"), null, null);
+        }
+
+        @Override
+        public void sendMessage(Text message) { this.messages.add(message); }
+
+        @Override
+        public boolean shouldReceiveFeedback() { return true; }
+
+        @Override
+        public boolean shouldTrackOutput() { return true; }
+
+        @Override
+        public boolean shouldBroadcastConsoleToOps() { return false; }
+    }
+}
@@ -0,0 +1,75 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * How long it takes to load the stats file when the server starts.
+ * Scores are only decoded once something needs them, so loading should barely depend on the player count,
+ * while decoding every stat shows what that laziness saves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BootBenchmark {
+
+    @Param({"1000"})
+    public int statistic_count;
+
+    @Param({"200", "5000"})
+    public int player_count;
+
+    @Param({"false", "true"})
+    public boolean decode_scores;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("topper-boot");
+
+        CustomStatisticsAugment augment = new CustomStatisticsAugment();
+        augment.openStorage(this.directory);
+
+        for (int i = 0; i < this.statistic_count; i++) {
+            augment.createCustomStatistic("stat_" + i, "Stat " + i, "owner");
+            CustomStatistic statistic = augment.getCustomStatistic("stat_" + i);
+            for (int player = 0; player < this.player_count; player++)
+                statistic.setScore("player_" + player, player * i);
+        }
+
+        // Write the stats file, so the journal is empty and only the file is loaded.
+        augment.writeToNbt(new NbtCompound(), null);
+        augment.closeStorage();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public CustomStatisticsAugment boot() {
+        CustomStatisticsAugment augment = new CustomStatisticsAugment();
+        augment.openStorage(this.directory);
+
+        if (this.decode_scores)
+            for (CustomStatistic statistic : augment.getCustomStatistics())
+                statistic.loadScores();
+
+        augment.closeStorage();
+        return augment;
+    }
+}
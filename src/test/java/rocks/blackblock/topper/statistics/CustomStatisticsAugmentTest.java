@@ -0,0 +1,146 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rocks.blackblock.core.statistics.StatFormat;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomStatisticsAugmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadingFromTheStatsFileIsNotAChange() {
+        CustomStatisticsAugment source = new CustomStatisticsAugment();
+        source.openStorage(this.directory);
+        source.createCustomStatistic("kills", "Kills", "alice");
+        CustomStatistic kills = source.getCustomStatistic("kills");
+        kills.enableHistory(HistoryWindow.DAILY);
+        kills.setFormat(StatFormat.DEFAULT);
+        kills.addScore("bob", 5);
+        source.writeToNbt(new NbtCompound(), null);
+        source.closeStorage();
+
+        CustomStatisticsAugment loaded = new CustomStatisticsAugment();
+        loaded.openStorage(this.directory);
+
+        CustomStatistic loaded_kills = loaded.getCustomStatistic("kills");
+        assertNotNull(loaded_kills.getHistory(HistoryWindow.DAILY));
+        assertEquals(5, loaded_kills.getScore("bob"));
+        assertFalse(loaded_kills.isDirty());
+        assertFalse(loaded.isDirty());
+
+        loaded.closeStorage();
+    }
+
+    @Test
+    void unreadableScoresAreSavedAsTheyWere() {
+        CustomStatisticsAugment source = new CustomStatisticsAugment();
+        source.createCustomStatistic("kills", "Kills", "alice");
+        source.getCustomStatistic("kills").addScore("bob", 5);
+        NbtCompound saved = source.writeToNbt(new NbtCompound(), null);
+
+        // Point the score at a player id that is not in the player table.
+        byte[] broken = ScoreCodec.encode(new long[]{ScoreCodec.pack(42, 5)});
+        getStatisticNbt(saved).putByteArray("score_data", broken);
+
+        CustomStatisticsAugment loaded = new CustomStatisticsAugment();
+        loaded.readFromNbt(saved, null);
+        CustomStatistic kills = loaded.getCustomStatistic("kills");
+
+        assertFalse(kills.loadScores());
+        assertEquals(0, kills.getScoreCount());
+        assertEquals(0, kills.addScore("bob", 1));
+
+        NbtCompound resaved = loaded.writeToNbt(new NbtCompound(), null);
+        assertArrayEquals(broken, getStatisticNbt(resaved).getByteArray("score_data"));
+    }
+
+    @Test
+    void truncatedScoresAreSavedAsTheyWere() {
+        CustomStatisticsAugment source = new CustomStatisticsAugment();
+        source.createCustomStatistic("kills", "Kills", "alice");
+        source.getCustomStatistic("kills").addScore("bob", 5);
+        source.getCustomStatistic("kills").addScore("carol", 300);
+        NbtCompound saved = source.writeToNbt(new NbtCompound(), null);
+
+        byte[] data = getStatisticNbt(saved).getByteArray("score_data");
+        byte[] broken = Arrays.copyOf(data, data.length - 1);
+        getStatisticNbt(saved).putByteArray("score_data", broken);
+
+        CustomStatisticsAugment loaded = new CustomStatisticsAugment();
+        loaded.readFromNbt(saved, null);
+        CustomStatistic kills = loaded.getCustomStatistic("kills");
+
+        // Nothing of the half-decoded data may end up in the stat.
+        assertEquals(0, kills.getScore("bob"));
+        assertEquals(0, kills.getRank("bob"));
+
+        kills.setDisplayName("Player kills");
+        NbtCompound resaved = loaded.writeToNbt(new NbtCompound(), null);
+        assertArrayEquals(broken, getStatisticNbt(resaved).getByteArray("score_data"));
+    }
+
+    @Test
+    void scoreChangesOnlyChangeTheVersionOfTheirOwnPlayer() {
+        CustomStatisticsAugment augment = new CustomStatisticsAugment();
+        augment.createCustomStatistic("kills", "Kills", "alice");
+        CustomStatistic kills = augment.getCustomStatistic("kills");
+        kills.addScore("bob", 5);
+
+        int bob = augment.getPlayers().getId("bob");
+        int bob_version = augment.getScoreIndex().getChangeVersion(bob);
+        int metadata_version = augment.getMetadataVersion();
+
+        // Another player's score does not concern bob's screen.
+        kills.addScore("carol", 3);
+        assertEquals(bob_version, augment.getScoreIndex().getChangeVersion(bob));
+        assertEquals(metadata_version, augment.getMetadataVersion());
+
+        kills.addScore("bob", 1);
+        assertNotEquals(bob_version, augment.getScoreIndex().getChangeVersion(bob));
+
+        kills.setDisplayName("Player kills");
+        assertNotEquals(metadata_version, augment.getMetadataVersion());
+    }
+
+    @Test
+    void scoreChangesDoNotRepublishTheSnapshot() {
+        CustomStatisticsAugment augment = new CustomStatisticsAugment();
+        augment.createCustomStatistic("kills", "Kills", "alice");
+        CustomStatistic kills = augment.getCustomStatistic("kills");
+        kills.addScore("bob", 5);
+
+        StatisticsSnapshot snapshot = augment.getSnapshot();
+        assertFalse(snapshot.getStatistic("kills").hasScores());
+
+        // Changing a known player's score leaves the snapshot as it was.
+        kills.addScore("bob", 1);
+        augment.tick();
+        assertSame(snapshot, augment.getSnapshot());
+
+        // The scores are only copied when asked for, and only once per change.
+        StatisticView scored = kills.getScoredView();
+        assertEquals(1, scored.getScoreCount());
+        assertEquals(6, scored.getLeaderboardPage(1, 10, snapshot.getPlayerNames())[0].score());
+        assertSame(scored, kills.getScoredView());
+
+        // A metadata change is published on the next tick.
+        kills.setDisplayName("Player kills");
+        augment.tick();
+        StatisticsSnapshot renamed = augment.getPublishedSnapshot();
+        assertNotSame(snapshot, renamed);
+        assertEquals("Player kills", renamed.getStatistic("kills").display_name());
+    }
+
+    private static NbtCompound getStatisticNbt(NbtCompound saved) {
+        return saved.getList("custom_statistics", NbtElement.COMPOUND_TYPE).getCompound(0);
+    }
+}
@@ -0,0 +1,109 @@
+package rocks.blackblock.topper.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingScoresTest {
+
+    private static final String[] KEYS = {"kills", "deaths", "blocks_placed"};
+    private static final String[] TARGETS = {"alice", "bob", "carol", "dave", "eve"};
+
+    @Test
+    void concurrentAddsAreNeverLost() throws InterruptedException {
+        PendingScores pending = new PendingScores();
+        for (String key : KEYS) pending.register(key);
+
+        int thread_count = 8;
+        int iterations = 200_000;
+
+        HashMap<String, Long> expected = new HashMap<>();
+        HashMap<String, Long> drained = new HashMap<>();
+        AtomicBoolean adding = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Keep draining while the other threads are adding.
+        Thread drainer = new Thread(() -> {
+            while (adding.get())
+                pending.drain((key, target, delta) -> drained.merge(key + "/" + target, (long) delta, Long::sum));
+        });
+        drainer.start();
+
+        Thread[] adders = new Thread[thread_count];
+        HashMap<String, Long>[] added = new HashMap[thread_count];
+        for (int t = 0; t < thread_count; t++) {
+            int thread = t;
+            added[t] = new HashMap<>();
+            adders[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int i = 0; i < iterations; i++) {
+                    String key = KEYS[(thread + i) % KEYS.length];
+                    String target = TARGETS[i % TARGETS.length];
+                    int value = (i % 7) - 2;
+                    assertTrue(pending.add(key, target, value));
+                    added[thread].merge(key + "/" + target, (long) value, Long::sum);
+                }
+            });
+            adders[t].start();
+        }
+
+        start.countDown();
+        for (Thread adder : adders) adder.join();
+        adding.set(false);
+        drainer.join();
+
+        // Whatever was added after the drainer's last pass is still pending.
+        pending.drain((key, target, delta) -> drained.merge(key + "/" + target, (long) delta, Long::sum));
+
+        for (HashMap<String, Long> thread_added : added)
+            thread_added.forEach((entry, value) -> expected.merge(entry, value, Long::sum));
+        expected.values().removeIf(value -> value == 0);
+        drained.values().removeIf(value -> value == 0);
+
+        assertEquals(expected, drained);
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void unknownKeysAreRejected() {
+        PendingScores pending = new PendingScores();
+        pending.register("kills");
+
+        assertFalse(pending.add("missing", "alice", 5));
+        assertTrue(pending.isEmpty());
+
+        assertTrue(pending.add("kills", "alice", 5));
+        assertFalse(pending.isEmpty());
+    }
+
+    @Test
+    void drainedAndUnregisteredKeysLeaveNothingBehind() {
+        PendingScores pending = new PendingScores();
+        pending.register("kills");
+        pending.register("deaths");
+
+        pending.add("kills", "alice", 3);
+        pending.add("kills", "alice", 4);
+        pending.add("deaths", "bob", 1);
+
+        // Deleting a stat drops its pending deltas.
+        pending.unregister("deaths");
+        assertFalse(pending.add("deaths", "bob", 1));
+
+        HashMap<String, Integer> drained = new HashMap<>();
+        pending.drain((key, target, delta) -> drained.put(key + "/" + target, delta));
+
+        assertEquals(1, drained.size());
+        assertEquals(7, drained.get("kills/alice"));
+        assertTrue(pending.isEmpty());
+    }
+}
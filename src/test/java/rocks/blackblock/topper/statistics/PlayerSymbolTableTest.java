@@ -0,0 +1,101 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerSymbolTableTest {
+
+    private static final UUID ALICE = new UUID(0, 1);
+    private static final UUID BOB = new UUID(0, 2);
+
+    @Test
+    void aRenameIntoATakenNameRetiresTheOtherId() {
+        PlayerSymbolTable players = new PlayerSymbolTable();
+        players.register(BOB, "Bob");
+        players.register(ALICE, "Alice");
+        int bob_id = players.getId(BOB);
+        int alice_id = players.getId(ALICE);
+
+        // Bob renamed himself away and Alice took his old name before he came back.
+        assertTrue(players.register(ALICE, "Bob"));
+
+        assertEquals(alice_id, players.getId("Bob"));
+        assertEquals(alice_id, players.getId(ALICE));
+        assertEquals(bob_id, players.getId(BOB));
+        assertEquals(bob_id, players.getId(players.getName(bob_id)));
+        assertUniqueNames(players);
+
+        // Bob gets his own name back when he joins again.
+        players.register(BOB, "Robert");
+        assertEquals(bob_id, players.getId("Robert"));
+        assertUniqueNames(players);
+    }
+
+    @Test
+    void aNewPlayerRetiresTheIdThatStillHasTheirName() {
+        PlayerSymbolTable players = new PlayerSymbolTable();
+        players.register(BOB, "Bob");
+        int bob_id = players.getId(BOB);
+
+        UUID new_bob = new UUID(0, 3);
+        players.register(new_bob, "Bob");
+
+        assertNotEquals(bob_id, players.getId(new_bob));
+        assertEquals(players.getId(new_bob), players.getId("Bob"));
+        assertEquals(bob_id, players.getId(BOB));
+        assertUniqueNames(players);
+    }
+
+    @Test
+    void retiredIdsSurviveARestart() {
+        PlayerSymbolTable players = new PlayerSymbolTable();
+        players.register(BOB, "Bob");
+        players.register(ALICE, "Alice");
+        players.register(ALICE, "Bob");
+
+        PlayerSymbolTable loaded = new PlayerSymbolTable();
+        loaded.readFromNbt(players.toNbt());
+
+        assertArrayEquals(players.copyNames(), loaded.copyNames());
+        assertEquals(loaded.getId(ALICE), loaded.getId("Bob"));
+    }
+
+    @Test
+    void duplicateNamesInOldFilesGoToTheNewestPlayer() {
+        NbtList list = new NbtList();
+        list.add(entry("Bob", null));
+        list.add(entry("Bob", BOB));
+        list.add(entry("Bob", ALICE));
+        list.add(entry("Bob", null));
+
+        PlayerSymbolTable players = new PlayerSymbolTable();
+        players.readFromNbt(list);
+
+        assertEquals(4, players.size());
+        assertEquals(2, players.getId("Bob"));
+        assertEquals(2, players.getId(ALICE));
+        assertEquals(1, players.getId(BOB));
+        assertUniqueNames(players);
+    }
+
+    private static NbtCompound entry(String name, UUID uuid) {
+        NbtCompound compound = new NbtCompound();
+        compound.putString("name", name);
+        if (uuid != null) compound.putUuid("uuid", uuid);
+        return compound;
+    }
+
+    private static void assertUniqueNames(PlayerSymbolTable players) {
+        String[] names = players.copyNames();
+        assertEquals(names.length, new HashSet<>(Arrays.asList(names)).size(), Arrays.toString(names));
+        for (int id = 0; id < names.length; id++)
+            assertEquals(id, players.getId(names[id]));
+    }
+}
@@ -0,0 +1,57 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long a save takes when only some of the custom stats changed since the previous one.
+ * Unchanged stats reuse their encoded NBT, so the time should follow the changed count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveBenchmark {
+
+    @Param({"1000"})
+    public int statistic_count;
+
+    @Param({"200"})
+    public int player_count;
+
+    @Param({"0", "10", "1000"})
+    public int changed_count;
+
+    private CustomStatisticsAugment augment;
+    private CustomStatistic[] statistics;
+    private int round = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.augment = new CustomStatisticsAugment();
+        this.statistics = new CustomStatistic[this.statistic_count];
+
+        for (int i = 0; i < this.statistic_count; i++) {
+            this.augment.createCustomStatistic("stat_" + i, "Stat " + i, "owner");
+            this.statistics[i] = this.augment.getCustomStatistic("stat_" + i);
+            for (int player = 0; player < this.player_count; player++)
+                this.statistics[i].addScore("player_" + player, player * i);
+        }
+
+        // The first save encodes every stat.
+        this.augment.writeToNbt(new NbtCompound(), null);
+    }
+
+    @Benchmark
+    public NbtCompound saveAfterChanges() {
+        for (int i = 0; i < this.changed_count; i++)
+            this.statistics[(this.round + i) % this.statistic_count].addScore("player_0", 1);
+        this.round += this.changed_count;
+
+        return this.augment.writeToNbt(new NbtCompound(), null);
+    }
+}
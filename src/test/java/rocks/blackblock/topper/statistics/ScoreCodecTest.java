@@ -0,0 +1,76 @@
+package rocks.blackblock.topper.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreCodecTest {
+
+    @Test
+    void entriesSurviveARoundTrip() {
+        Random random = new Random(11);
+        long[] entries = new long[5_000];
+        int player_id = 0;
+
+        for (int i = 0; i < entries.length; i++) {
+            player_id += 1 + random.nextInt(i % 100 == 0 ? 1_000_000 : 3);
+            int score = switch (i % 4) {
+                case 0 -> random.nextInt(100);
+                case 1 -> -random.nextInt(100);
+                case 2 -> random.nextInt();
+                default -> i % 8 == 3 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            };
+            entries[i] = ScoreCodec.pack(player_id, score);
+        }
+
+        long[] expected = entries.clone();
+        Arrays.sort(expected);
+
+        // The encoder does not care about the order the entries come in.
+        long[] shuffled = entries.clone();
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int other = random.nextInt(i + 1);
+            long entry = shuffled[i];
+            shuffled[i] = shuffled[other];
+            shuffled[other] = entry;
+        }
+
+        assertArrayEquals(expected, decode(ScoreCodec.encode(shuffled)));
+    }
+
+    @Test
+    void emptyScoresAreOneVersionAndOneCountByte() {
+        byte[] data = ScoreCodec.encode(new long[0]);
+        assertArrayEquals(new byte[]{ScoreCodec.VERSION, 0}, data);
+        assertEquals(0, decode(data).length);
+    }
+
+    @Test
+    void brokenDataIsRejected() {
+        byte[] data = ScoreCodec.encode(new long[]{ScoreCodec.pack(1, 300), ScoreCodec.pack(2, -300)});
+
+        for (int length = 0; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(IllegalArgumentException.class, () -> decode(truncated), "Cut at " + length);
+        }
+
+        byte[] unknown_version = data.clone();
+        unknown_version[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> decode(unknown_version));
+    }
+
+    private static long[] decode(byte[] data) {
+        long[][] decoded = {new long[8]};
+        int[] count = {0};
+
+        ScoreCodec.decode(data, (player_id, score) -> {
+            if (count[0] == decoded[0].length) decoded[0] = Arrays.copyOf(decoded[0], count[0] * 2);
+            decoded[0][count[0]++] = ScoreCodec.pack(player_id, score);
+        });
+
+        return Arrays.copyOf(decoded[0], count[0]);
+    }
+}
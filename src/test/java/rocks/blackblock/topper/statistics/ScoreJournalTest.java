@@ -0,0 +1,243 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveTheProcessBeingKilledMidWrite() throws Exception {
+        Path world = this.directory.resolve("killed");
+
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                Writer.class.getName(),
+                world.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        // Kill it while it is still writing, without giving it a chance to close the journal.
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            do {
+                line = output.readLine();
+            } while (line != null && !line.equals("writing"));
+            assertNotNull(line, "The writer process stopped on its own");
+        }
+        process.destroyForcibly();
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+
+        CustomStatisticsAugment augment = new CustomStatisticsAugment();
+        augment.openStorage(world);
+
+        int counter = augment.getCustomStatistic("counter").getScore("bob");
+        int sum = augment.getCustomStatistic("sum").getScore("bob");
+        augment.closeStorage();
+
+        // Every step sets the counter and then adds 1 to the sum,
+        // so the replay may only have lost the second half of the very last step.
+        assertTrue(counter > 0, "Nothing was replayed");
+        assertTrue(counter - sum == 0 || counter - sum == 1, "Counter " + counter + " does not match sum " + sum);
+    }
+
+    @Test
+    void replayStopsAtATornRecord() throws IOException {
+        Path source = this.directory.resolve("source");
+        int additions = 10;
+
+        CustomStatisticsAugment writer = new CustomStatisticsAugment();
+        writer.openStorage(source);
+        writer.createCustomStatistic("kills", "Kills", "alice");
+        for (int i = 0; i < additions; i++)
+            writer.getCustomStatistic("kills").addScore("bob", 1);
+        writer.closeStorage();
+
+        byte[] segment = Files.readAllBytes(source.resolve("journal-0.log"));
+        List<Integer> record_ends = getRecordEnds(segment);
+        assertEquals(additions + 1, record_ends.size());
+
+        // Cut the segment at every possible length and check only the complete records are replayed.
+        for (int length = record_ends.get(0); length <= segment.length; length++) {
+            Path torn = this.directory.resolve("torn-" + length);
+            Files.createDirectories(torn);
+            Files.write(torn.resolve("journal-0.log"), Arrays.copyOf(segment, length));
+
+            int complete_additions = -1;
+            for (int end : record_ends)
+                if (end <= length) complete_additions++;
+
+            CustomStatisticsAugment reader = new CustomStatisticsAugment();
+            reader.openStorage(torn);
+            assertEquals(complete_additions, reader.getCustomStatistic("kills").getScore("bob"), "Cut at " + length);
+            reader.closeStorage();
+        }
+    }
+
+    @Test
+    void replayStopsAtGarbageAndAtRecordsThatCanNotBeApplied() throws IOException {
+        Path source = this.directory.resolve("garbage-source");
+
+        CustomStatisticsAugment writer = new CustomStatisticsAugment();
+        writer.openStorage(source);
+        writer.createCustomStatistic("kills", "Kills", "alice");
+        writer.getCustomStatistic("kills").addScore("bob", 3);
+        writer.closeStorage();
+
+        byte[] segment = Files.readAllBytes(source.resolve("journal-0.log"));
+
+        // A length so large that adding to it overflows.
+        Path huge_length = this.directory.resolve("huge-length");
+        Files.createDirectories(huge_length);
+        Files.write(huge_length.resolve("journal-0.log"), concat(segment, ByteBuffer.allocate(8).putInt(Integer.MAX_VALUE - 1).array()));
+
+        // A record with a valid checksum, but with a payload that ends halfway, followed by a valid record.
+        Path unappliable = this.directory.resolve("unappliable");
+        Files.createDirectories(unappliable);
+        byte[] broken_record = frame(new byte[]{3, 0, 5, 'k'});
+        Files.write(unappliable.resolve("journal-0.log"), concat(concat(segment, broken_record), Arrays.copyOfRange(segment, getRecordEnds(segment).get(0), segment.length)));
+
+        for (Path world : List.of(huge_length, unappliable)) {
+            CustomStatisticsAugment reader = new CustomStatisticsAugment();
+            reader.openStorage(world);
+            assertEquals(3, reader.getCustomStatistic("kills").getScore("bob"), world.getFileName().toString());
+            reader.closeStorage();
+        }
+    }
+
+    @Test
+    void replayedDeltasGoToTheWindowTheyWereAddedIn() {
+        Path world = this.directory.resolve("history");
+        long today = HistoryWindow.getCurrentEpochDay();
+
+        CustomStatisticsAugment writer = new CustomStatisticsAugment();
+        writer.openStorage(world);
+        writer.createCustomStatistic("kills", "Kills", "alice");
+        CustomStatistic kills = writer.getCustomStatistic("kills");
+        kills.enableHistory(HistoryWindow.DAILY);
+        kills.addScore("bob", 5, today - 1);
+        kills.addScore("bob", 2, today);
+        writer.closeStorage();
+
+        CustomStatisticsAugment reader = new CustomStatisticsAugment();
+        reader.openStorage(world);
+        int bob = reader.getPlayers().getId("bob");
+        ScoreHistory history = reader.getCustomStatistic("kills").getHistory(HistoryWindow.DAILY);
+        reader.closeStorage();
+
+        assertEquals(7, reader.getCustomStatistic("kills").getScore(bob));
+        assertEquals(2, history.getScore(bob, 0));
+        assertEquals(5, history.getScore(bob, 1));
+    }
+
+    @Test
+    void theFallbackFileKeepsItsGenerationsAfterARestart() throws IOException {
+        Path world = this.directory.resolve("fallback");
+
+        CustomStatisticsAugment writer = new CustomStatisticsAugment();
+        writer.openStorage(world);
+        writer.createCustomStatistic("kills", "Kills", "alice");
+        CustomStatistic kills = writer.getCustomStatistic("kills");
+        kills.addScore("bob", 1);
+        writer.writeToNbt(new NbtCompound(), null);
+        kills.addScore("bob", 2);
+        writer.writeToNbt(new NbtCompound(), null);
+        kills.addScore("bob", 4);
+        writer.closeStorage();
+
+        // A restart that logs something may not delete the generations the fallback file still needs.
+        CustomStatisticsAugment restarted = new CustomStatisticsAugment();
+        restarted.openStorage(world);
+        restarted.getCustomStatistic("kills").addScore("bob", 8);
+        restarted.closeStorage();
+
+        // Break the current file, so the fallback file is loaded.
+        Path current = world.resolve("custom_statistics.dat");
+        byte[] bytes = Files.readAllBytes(current);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(current, bytes);
+
+        CustomStatisticsAugment recovered = new CustomStatisticsAugment();
+        recovered.openStorage(world);
+        assertEquals(15, recovered.getCustomStatistic("kills").getScore("bob"));
+        recovered.closeStorage();
+    }
+
+    /**
+     * Get the offset right after every record of a segment
+     */
+    private static List<Integer> getRecordEnds(byte[] segment) {
+        List<Integer> ends = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(segment);
+        buffer.position(5);
+
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            buffer.position(buffer.position() + length + 4);
+            ends.add(buffer.position());
+        }
+
+        return ends;
+    }
+
+    private static byte[] frame(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return ByteBuffer.allocate(4 + body.length + 4).putInt(body.length).put(body).putInt((int) crc.getValue()).array();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Keeps logging changes until it is killed
+     */
+    public static class Writer {
+        public static void main(String[] args) throws InterruptedException {
+            CustomStatisticsAugment augment = new CustomStatisticsAugment();
+            augment.openStorage(Path.of(args[0]));
+            augment.createCustomStatistic("counter", "Counter", "alice");
+            augment.createCustomStatistic("sum", "Sum", "alice");
+            CustomStatistic counter = augment.getCustomStatistic("counter");
+            CustomStatistic sum = augment.getCustomStatistic("sum");
+
+            long started = System.currentTimeMillis();
+            boolean announced = false;
+
+            for (int i = 1; ; i++) {
+                counter.setScore("bob", i);
+                sum.addScore("bob", 1);
+
+                // Let a few flushes happen before telling the test it can kill us.
+                if (!announced && System.currentTimeMillis() - started > 500) {
+                    System.out.println("writing");
+                    System.out.flush();
+                    announced = true;
+                }
+
+                if (i % 1000 == 0) Thread.sleep(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package rocks.blackblock.topper.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreRankIndexTest {
+
+    @Test
+    void matchesASortedListThroughRandomChanges() {
+        ScoreRankIndex index = new ScoreRankIndex();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int step = 0; step < 20_000; step++) {
+            // Spread the ids out, so they are nothing like the slots.
+            int player_id = random.nextInt(300) * 7_000_001;
+            int score = random.nextInt(50) - 10;
+
+            if (random.nextInt(5) == 0) {
+                index.remove(player_id);
+                expected.remove(player_id);
+            } else {
+                index.put(player_id, score);
+                expected.put(player_id, score);
+            }
+
+            if (step % 500 == 0) assertMatches(expected, index);
+        }
+
+        assertMatches(expected, index);
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(-1, index.select(0));
+    }
+
+    @Test
+    void equalScoresShareARankAndAreOrderedById() {
+        ScoreRankIndex index = new ScoreRankIndex();
+        index.put(9, 5);
+        index.put(3, 5);
+        index.put(4, 8);
+        index.put(1, 2);
+
+        assertEquals(1, index.getRank(4));
+        assertEquals(2, index.getRank(3));
+        assertEquals(2, index.getRank(9));
+        assertEquals(4, index.getRank(1));
+        assertEquals(0, index.getRank(100));
+
+        assertEquals(3, index.select(1));
+        assertEquals(9, index.select(2));
+        assertEquals(-1, index.getPosition(100));
+    }
+
+    private static void assertMatches(Map<Integer, Integer> expected, ScoreRankIndex index) {
+        List<Map.Entry<Integer, Integer>> order = new ArrayList<>(expected.entrySet());
+        order.sort(Comparator.<Map.Entry<Integer, Integer>>comparingInt(entry -> -entry.getValue()).thenComparingInt(Map.Entry::getKey));
+
+        assertEquals(order.size(), index.size());
+
+        int[] ids = new int[order.size()];
+        int[] scores = new int[order.size()];
+        index.copyInOrder(ids, scores);
+
+        for (int position = 0; position < order.size(); position++) {
+            int player_id = order.get(position).getKey();
+            int score = order.get(position).getValue();
+
+            int rank = 1;
+            for (Map.Entry<Integer, Integer> entry : order)
+                if (entry.getValue() > score) rank++;
+
+            assertEquals(player_id, ids[position]);
+            assertEquals(score, scores[position]);
+            assertEquals(player_id, index.select(position));
+            assertEquals(position, index.getPosition(player_id));
+            assertEquals(rank, index.getRank(player_id));
+            assertEquals(score, index.getScore(player_id));
+            assertTrue(index.contains(player_id));
+        }
+    }
+}
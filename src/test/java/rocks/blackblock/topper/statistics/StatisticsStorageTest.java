@@ -0,0 +1,79 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void aCorruptFileIsNeverRotatedOverTheFallback() throws IOException {
+        StatisticsStorage storage = new StatisticsStorage(this.directory);
+        storage.save(data(1));
+        storage.save(data(2));
+        corrupt(this.directory.resolve("custom_statistics.dat"));
+
+        // Loading falls back to the first save.
+        storage = new StatisticsStorage(this.directory);
+        assertEquals(1, storage.load().getInt("save"));
+
+        // The next save replaces the corrupt file, so the first save is still the fallback.
+        storage.save(data(3));
+        corrupt(this.directory.resolve("custom_statistics.dat"));
+        assertEquals(1, new StatisticsStorage(this.directory).load().getInt("save"));
+    }
+
+    @Test
+    void aGoodFileIsRotatedIntoTheFallback() throws IOException {
+        StatisticsStorage storage = new StatisticsStorage(this.directory);
+        storage.save(data(1));
+        assertEquals(1, storage.load().getInt("save"));
+
+        storage.save(data(2));
+        corrupt(this.directory.resolve("custom_statistics.dat"));
+        assertEquals(1, new StatisticsStorage(this.directory).load().getInt("save"));
+    }
+
+    @Test
+    void closedStorageIsNotReusedForTheNextWorld() throws IOException {
+        Path first = this.directory.resolve("first");
+        Path second = this.directory.resolve("second");
+
+        CustomStatisticsAugment augment = new CustomStatisticsAugment();
+        augment.openStorage(first);
+        augment.createCustomStatistic("kills", "Kills", "alice");
+        augment.writeToNbt(new NbtCompound(), null);
+        augment.closeStorage();
+
+        augment.openStorage(second);
+        augment.writeToNbt(new NbtCompound(), null);
+        augment.closeStorage();
+
+        assertNotNull(new StatisticsStorage(second).load());
+    }
+
+    private static NbtCompound data(int save) {
+        NbtCompound data = new NbtCompound();
+        data.putInt("save", save);
+        return data;
+    }
+
+    private static void corrupt(Path path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // Flip the last byte of the checksum.
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package rocks.blackblock.topper.statistics;
+
+import net.minecraft.nbt.NbtCompound;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * How long it takes to read & verify a large stats file, and to write it durably.
+ * Loading parses and checksums the file in a single pass, so it should scale with the file size only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"1000", "10000"})
+    public int statistic_count;
+
+    @Param({"1000"})
+    public int player_count;
+
+    private Path directory;
+    private StatisticsStorage storage;
+    private NbtCompound data;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("topper-storage");
+        this.storage = new StatisticsStorage(this.directory);
+
+        // Without storage, the augment writes all of its stats inline.
+        CustomStatisticsAugment augment = new CustomStatisticsAugment();
+        for (int i = 0; i < this.statistic_count; i++) {
+            augment.createCustomStatistic("stat_" + i, "Stat " + i, "owner");
+            CustomStatistic statistic = augment.getCustomStatistic("stat_" + i);
+            for (int player = 0; player < this.player_count; player++)
+                statistic.setScore("player_" + player, player * i);
+        }
+
+        this.data = augment.writeToNbt(new NbtCompound(), null);
+        this.storage.save(this.data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.storage.close();
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public NbtCompound load() {
+        return this.storage.load();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        this.storage.save(this.data);
+    }
+}